@@ -0,0 +1,149 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares decoding records into the primitive {@link Value} implementations with the former values,
+ * boxing their payload into a {@link Number}. Run with the gc profiler to compare the allocations
+ * per decoded record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueBenchmark {
+
+	private final static int SIZE = 1024;
+
+	private final double[] doubles = new double[SIZE];
+	private final int[] ints = new int[SIZE];
+	private final boolean[] booleans = new boolean[SIZE];
+	private long time;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		for (int i = 0; i < SIZE; i++) {
+			doubles[i] = random.nextDouble()*1000;
+			ints[i] = random.nextInt();
+			booleans[i] = random.nextBoolean();
+		}
+		time = System.currentTimeMillis();
+	}
+
+	@Benchmark
+	public void decodeDouble(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			Value value = new DoubleValue(doubles[i], time + i);
+			blackhole.consume(value.doubleValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeDoubleBoxed(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			BoxedValue value = new BoxedValue(ValueType.DOUBLE, Double.valueOf(doubles[i]), time + i);
+			blackhole.consume(value.doubleValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeInt(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			Value value = new IntValue(ints[i], time + i);
+			blackhole.consume(value.intValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeIntBoxed(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			BoxedValue value = new BoxedValue(ValueType.INTEGER, Integer.valueOf(ints[i]), time + i);
+			blackhole.consume(value.intValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeBoolean(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			Value value = new BooleanValue(booleans[i], time + i);
+			blackhole.consume(value.booleanValue());
+		}
+	}
+
+	@Benchmark
+	public void decodeBooleanBoxed(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			BoxedValue value = new BoxedValue(ValueType.BOOLEAN, (booleans[i] ? 1 : 0), time + i);
+			blackhole.consume(value.booleanValue());
+		}
+	}
+
+	/**
+	 * Value as implemented before, holding its payload as boxed {@link Number}.
+	 */
+	private static class BoxedValue {
+
+		private final ValueType type;
+		private final Number value;
+		private final long time;
+
+		private BoxedValue(ValueType type, Number value, long time) {
+			this.type = type;
+			this.value = value;
+			this.time = time;
+		}
+
+		public double doubleValue() {
+			return value.doubleValue();
+		}
+
+		public int intValue() {
+			return value.intValue();
+		}
+
+		public boolean booleanValue() {
+			return value.intValue() != 0;
+		}
+
+		@Override
+		public String toString() {
+			return type + ":" + value + "@" + time;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the binary {@link ValueCodec} with a JSON text encoding of the same series, as values were
+ * exchanged as text before. The JSON encoding is written and parsed by hand, to measure the format 
+ * instead of a library.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCodecBenchmark {
+
+	@Param({"100", "10000"})
+	private int size;
+
+	private ValueList values;
+
+	private ByteBuffer buffer;
+	private ByteBuffer encoded;
+	private byte[] json;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		long time = System.currentTimeMillis();
+		values = new ValueList();
+		for (int i = 0; i < size; i++) {
+			values.add(new DoubleValue(random.nextDouble()*1000, time + i*1000));
+		}
+		buffer = ByteBuffer.allocate(2 + size*ValueCodec.VALUE_SIZE_MAX);
+		encoded = ValueCodec.encodeValueList(values);
+		json = encodeJson(values);
+		
+		System.out.printf("%n%d values encoded in %d bytes binary, %d bytes JSON%n", size, encoded.remaining(), json.length);
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBinary() {
+		buffer.clear();
+		ValueCodec.encodeValueList(buffer, values);
+		return buffer;
+	}
+
+	@Benchmark
+	public ValueList decodeBinary() {
+		return ValueCodec.decodeValueList(encoded.duplicate());
+	}
+
+	@Benchmark
+	public byte[] encodeJson() {
+		return encodeJson(values);
+	}
+
+	@Benchmark
+	public ValueList decodeJson() {
+		return decodeJson(json);
+	}
+
+	private static byte[] encodeJson(ValueList values) {
+		StringBuilder json = new StringBuilder(values.size()*48);
+		json.append('[');
+		for (Value value : values) {
+			if (json.length() > 1) {
+				json.append(',');
+			}
+			json.append("{\"type\":\"").append(value.getType()).append("\",\"time\":").append(value.getTime())
+				.append(",\"value\":").append(value.doubleValue()).append('}');
+		}
+		json.append(']');
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static ValueList decodeJson(byte[] bytes) {
+		String json = new String(bytes, StandardCharsets.UTF_8);
+		ValueList values = new ValueList();
+		int index = 0;
+		while ((index = json.indexOf("\"time\":", index)) >= 0) {
+			int end = json.indexOf(',', index);
+			long time = Long.parseLong(json.substring(index + 7, end));
+			index = json.indexOf("\"value\":", end) + 8;
+			end = json.indexOf('}', index);
+			values.add(new DoubleValue(Double.parseDouble(json.substring(index, end)), time));
+			index = end;
+		}
+		return values;
+	}
+
+}
@@ -19,16 +19,30 @@
  */
 package org.the.ems.core;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import org.the.ems.core.data.Channel;
+import org.the.ems.core.data.ChannelHandle;
+import org.the.ems.core.data.ChannelStatistics;
 import org.the.ems.core.data.UnknownChannelException;
 import org.the.ems.core.data.Value;
 import org.the.ems.core.data.ValueList;
 import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.data.WriteContainer;
+import org.the.ems.core.data.WriteResult;
 
 public interface ContentManagementService {
 
 	public Channel getChannel(String id) throws UnknownChannelException;
 
+	/*
+	 * The id may contain the wildcards ? and *, to register the listener for all matching channels,
+	 * including channels added after the registration.
+	 */
 	public void registerValueListener(String id, ValueListener listener) throws UnknownChannelException;
 
 	public void deregisterValueListener(String id, ValueListener listener) throws UnknownChannelException;
@@ -37,10 +51,93 @@ public interface ContentManagementService {
 
 	public Value getLatestValue(String id) throws UnknownChannelException;
 
+	/*
+	 * Get an immutable snapshot of the latest values of several channels, mapped by their id.
+	 */
+	public default Map<String, Value> getLatestValues(Collection<String> ids) throws UnknownChannelException {
+		return getLatestValues(ids, false);
+	}
+
+	/*
+	 * Get an immutable snapshot of the latest values of several channels, mapped by their id.
+	 * If read is true, the channels will be actively read from their devices first.
+	 */
+	public default Map<String, Value> getLatestValues(Collection<String> ids, boolean read) throws UnknownChannelException {
+		Map<String, Value> values = new LinkedHashMap<String, Value>();
+		for (String id : ids) {
+			values.put(id, getLatestValue(id));
+		}
+		return Collections.unmodifiableMap(values);
+	}
+
 	public void setLatestValue(String id, Value value) throws UnknownChannelException;
 
 	public void write(String id, Value value) throws UnknownChannelException;
 
 	public void write(String id, ValueList values) throws UnknownChannelException;
 
+	/*
+	 * Write the value and return a future, completed with the result as soon as the write was acknowledged.
+	 */
+	public default CompletableFuture<WriteResult> writeAsync(String id, Value value) throws UnknownChannelException {
+		return getChannel(id).writeAsync(value);
+	}
+
+	/*
+	 * Write the values of several channels as one batch, allowing drivers to combine them.
+	 * Of several values of a channel that are already due, only the latest one is written.
+	 */
+	public default void write(WriteContainer container) throws UnknownChannelException {
+		for (int i = 0; i < container.size(); i++) {
+			container.getChannel(i).write(container.getValues(i));
+		}
+	}
+
+	/*
+	 * Get a snapshot of the throughput and latency metrics of all channels accessed so far.
+	 */
+	public default Map<String, ChannelStatistics> getStatistics() {
+		return Collections.emptyMap();
+	}
+
+	/*
+	 * Resolve the handle of a channel once, to address it without its string identifier afterwards.
+	 */
+	public default ChannelHandle getChannelHandle(String id) throws UnknownChannelException {
+		getChannel(id);
+		return new ChannelHandle(id);
+	}
+
+	public default Channel getChannel(ChannelHandle handle) throws UnknownChannelException {
+		return getChannel(handle.getId());
+	}
+
+	public default void registerValueListener(ChannelHandle handle, ValueListener listener) throws UnknownChannelException {
+		getChannel(handle).registerValueListener(listener);
+	}
+
+	public default void deregisterValueListener(ChannelHandle handle, ValueListener listener) throws UnknownChannelException {
+		getChannel(handle).deregisterValueListener(listener);
+	}
+
+	public default Value getLatestValue(ChannelHandle handle) throws UnknownChannelException {
+		return getChannel(handle).getLatestValue();
+	}
+
+	public default void setLatestValue(ChannelHandle handle, Value value) throws UnknownChannelException {
+		getChannel(handle).setLatestValue(value);
+	}
+
+	public default void write(ChannelHandle handle, Value value) throws UnknownChannelException {
+		getChannel(handle).write(value);
+	}
+
+	public default void write(ChannelHandle handle, ValueList values) throws UnknownChannelException {
+		getChannel(handle).write(values);
+	}
+
+	public default CompletableFuture<WriteResult> writeAsync(ChannelHandle handle, Value value) throws UnknownChannelException {
+		return getChannel(handle).writeAsync(value);
+	}
+
 }
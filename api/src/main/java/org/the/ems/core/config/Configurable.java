@@ -321,7 +321,7 @@ public abstract class Configurable {
 		}
 		try {
 			String id = configs.get(section, key);
-			Channel channel = content.getChannel(id);
+			Channel channel = content.getChannel(content.getChannelHandle(id));
 			channels.put(key, channel);
 			
 			return channel;
@@ -21,17 +21,66 @@ package org.the.ems.core.data;
 
 public class BooleanValue extends Value {
 
+	private final boolean value;
+
 	public BooleanValue(boolean value, long timestamp) {
-		super(ValueType.BOOLEAN, (value ? 1 : 0), timestamp);
+		super(ValueType.BOOLEAN, timestamp);
+		this.value = value;
 	}
 
 	public BooleanValue(boolean value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value ? 1 : 0;
+	}
+
+	@Override
+	public float floatValue() {
+		return value ? 1 : 0;
+	}
+
+	@Override
+	public long longValue() {
+		return value ? 1 : 0;
+	}
+
+	@Override
+	public int intValue() {
+		return value ? 1 : 0;
+	}
+
+	@Override
+	public short shortValue() {
+		return (short) (value ? 1 : 0);
+	}
+
+	@Override
+	public byte byteValue() {
+		return (byte) (value ? 1 : 0);
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return value;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		// Booleans are hashed by their numeric representation
+		return intValue();
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return value == eq.booleanValue();
+	}
+
 	@Override
 	public String toString() {
-		return Boolean.toString(booleanValue());
+		return Boolean.toString(value);
 	}
 
 	public static BooleanValue emptyValue() {
@@ -21,12 +21,65 @@ package org.the.ems.core.data;
 
 public class ByteValue extends Value {
 
+	private final byte value;
+
 	public ByteValue(byte value, long timestamp) {
-		super(ValueType.BYTE, value, timestamp);
+		super(ValueType.BYTE, timestamp);
+		this.value = value;
 	}
 
 	public ByteValue(byte value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return value;
+	}
+
+	@Override
+	public long longValue() {
+		return value;
+	}
+
+	@Override
+	public int intValue() {
+		return value;
+	}
+
+	@Override
+	public short shortValue() {
+		return value;
+	}
+
+	@Override
+	public byte byteValue() {
+		return value;
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return value != 0;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		return Byte.hashCode(value);
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return value == eq.byteValue();
+	}
+
+	@Override
+	public String toString() {
+		return Byte.toString(value);
+	}
+
 }
@@ -19,6 +19,8 @@
  */
 package org.the.ems.core.data;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface Channel {
 
 	public String getId();
@@ -31,10 +33,43 @@ public interface Channel {
 
 	public void deregisterValueListener(ValueListener listener);
 
+	/*
+	 * Register a listener, only notified of values passing the filter. Channels that do not 
+	 * support filtering notify the listener of all values.
+	 */
+	public default void registerValueListener(ValueListener listener, ValueFilter filter) {
+		registerValueListener(listener);
+	}
+
 	public void setLatestValue(Value value);
 
 	public void write(ValueList value);
 
 	public void write(Value value);
 
+	/*
+	 * Write the value and return a future, completed with the result as soon as the write was acknowledged.
+	 * Channels that do not support acknowledgments complete the future with the status SUBMITTED, 
+	 * as soon as the value was handed over.
+	 */
+	public default CompletableFuture<WriteResult> writeAsync(Value value) {
+		long start = System.nanoTime();
+		try {
+			write(value);
+			return CompletableFuture.completedFuture(new WriteResult(getId(), value, 
+					WriteResult.Status.SUBMITTED, null, System.nanoTime() - start));
+			
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(new WriteResult(getId(), value, 
+					WriteResult.Status.FAILED, e.getMessage(), System.nanoTime() - start));
+		}
+	}
+
+	/*
+	 * Get the rolling history of the channel values, or null if no history is kept.
+	 */
+	public default ValueHistory getHistory() {
+		return null;
+	}
+
 }
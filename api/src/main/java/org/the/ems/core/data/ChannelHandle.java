@@ -0,0 +1,79 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Handle of a channel, resolved once by the {@link org.the.ems.core.ContentManagementService}.
+ * <p>
+ * The index of a handle addresses the channel in an array of the content management system, 
+ * which allows hot paths to access channels without hashing their string identifiers. Indexed 
+ * handles can only be created by implementations of the content management system, extending
+ * this class.
+ */
+public class ChannelHandle {
+
+	public final static int INDEX_NONE = -1;
+
+	private final int index;
+	private final String id;
+
+	protected ChannelHandle(int index, String id) {
+		if (id == null) {
+			throw new NullPointerException("Channel id may not be null");
+		}
+		this.index = index;
+		this.id = id;
+	}
+
+	public ChannelHandle(String id) {
+		this(INDEX_NONE, id);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ChannelHandle)) {
+			return false;
+		}
+		ChannelHandle other = (ChannelHandle) obj;
+		return index == other.index && id.equals(other.id);
+	}
+
+	@Override
+	public String toString() {
+		return id + "#" + index;
+	}
+
+}
@@ -21,6 +21,7 @@ package org.the.ems.core.data;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ChannelListener implements Channel {
 
@@ -58,6 +59,16 @@ public class ChannelListener implements Channel {
 		}
 	}
 
+	@Override
+	public void registerValueListener(ValueListener listener, ValueFilter filter) {
+		synchronized(listeners) {
+			if (!listeners.contains(listener)) {
+				listeners.add(listener);
+				channel.registerValueListener(listener, filter);
+			}
+		}
+	}
+
 	@Override
 	public void deregisterValueListener(ValueListener listener) {
 		synchronized(listeners) {
@@ -77,6 +88,11 @@ public class ChannelListener implements Channel {
 		}
 	}
 
+	@Override
+	public ValueHistory getHistory() {
+		return channel.getHistory();
+	}
+
 	@Override
 	public void setLatestValue(Value value) {
 		channel.setLatestValue(value);
@@ -92,4 +108,9 @@ public class ChannelListener implements Channel {
 		channel.write(value);
 	}
 
+	@Override
+	public CompletableFuture<WriteResult> writeAsync(Value value) {
+		return channel.writeAsync(value);
+	}
+
 }
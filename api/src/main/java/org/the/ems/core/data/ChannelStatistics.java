@@ -0,0 +1,165 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Snapshot of the throughput and latency metrics of a {@link Channel}, counted since the channel was first accessed.
+ */
+public final class ChannelStatistics {
+
+	/**
+	 * Latency distribution of events, with all times in milliseconds. Percentiles are estimated 
+	 * by the upper bound of histogram buckets and are therefore accurate to a factor of two.
+	 */
+	public final static class Latency {
+
+		public final static Latency EMPTY = new Latency(0, 0, 0, 0, 0, 0);
+
+		private final long count;
+		private final double mean;
+		private final double max;
+		private final double median;
+		private final double percentile90;
+		private final double percentile99;
+
+		public Latency(long count, double mean, double max, double median, double percentile90, double percentile99) {
+			this.count = count;
+			this.mean = mean;
+			this.max = max;
+			this.median = median;
+			this.percentile90 = percentile90;
+			this.percentile99 = percentile99;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getMax() {
+			return max;
+		}
+
+		public double getMedian() {
+			return median;
+		}
+
+		public double getPercentile90() {
+			return percentile90;
+		}
+
+		public double getPercentile99() {
+			return percentile99;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("n=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms", 
+					count, mean, median, percentile90, percentile99, max);
+		}
+	}
+
+	private final String id;
+
+	private final long recordCount;
+	private final long recordInvalidCount;
+	private final Latency dispatchLatency;
+
+	private final long writeCount;
+	private final long writeCoalescedCount;
+	private final long writeFailedCount;
+	private final Latency writeLatency;
+
+	public ChannelStatistics(String id, long recordCount, long recordInvalidCount, Latency dispatchLatency,
+			long writeCount, long writeCoalescedCount, long writeFailedCount, Latency writeLatency) {
+		this.id = id;
+		this.recordCount = recordCount;
+		this.recordInvalidCount = recordInvalidCount;
+		this.dispatchLatency = dispatchLatency;
+		this.writeCount = writeCount;
+		this.writeCoalescedCount = writeCoalescedCount;
+		this.writeFailedCount = writeFailedCount;
+		this.writeLatency = writeLatency;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/*
+	 * Get the number of records received from the driver, including invalid ones.
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/*
+	 * Get the number of received records flagged other than valid.
+	 */
+	public long getRecordInvalidCount() {
+		return recordInvalidCount;
+	}
+
+	/*
+	 * Get the time listeners took to handle received values.
+	 */
+	public Latency getDispatchLatency() {
+		return dispatchLatency;
+	}
+
+	/*
+	 * Get the number of values offered to be written or set as latest value.
+	 */
+	public long getWriteCount() {
+		return writeCount;
+	}
+
+	/*
+	 * Get the number of values, which were replaced by a newer value before being written.
+	 */
+	public long getWriteCoalescedCount() {
+		return writeCoalescedCount;
+	}
+
+	/*
+	 * Get the number of writes acknowledged by the driver with a flag other than valid.
+	 */
+	public long getWriteFailedCount() {
+		return writeFailedCount;
+	}
+
+	/*
+	 * Get the time the driver took to acknowledge written values.
+	 */
+	public Latency getWriteLatency() {
+		return writeLatency;
+	}
+
+	@Override
+	public String toString() {
+		return id + ": records=" + recordCount + " invalid=" + recordInvalidCount + " dispatch[" + dispatchLatency + "]" +
+				" writes=" + writeCount + " coalesced=" + writeCoalescedCount + " failed=" + writeFailedCount + 
+				" write[" + writeLatency + "]";
+	}
+
+}
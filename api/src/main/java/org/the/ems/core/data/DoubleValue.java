@@ -21,14 +21,67 @@ package org.the.ems.core.data;
 
 public class DoubleValue extends Value {
 
+	private final double value;
+
 	public DoubleValue(double value, long timestamp) {
-		super(ValueType.DOUBLE, value, timestamp);
+		super(ValueType.DOUBLE, timestamp);
+		this.value = value;
 	}
 
 	public DoubleValue(double value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return (float) value;
+	}
+
+	@Override
+	public long longValue() {
+		return (long) value;
+	}
+
+	@Override
+	public int intValue() {
+		return (int) value;
+	}
+
+	@Override
+	public short shortValue() {
+		return (short) value;
+	}
+
+	@Override
+	public byte byteValue() {
+		return (byte) value;
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return (int) value != 0;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		return Double.hashCode(value);
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return Double.doubleToLongBits(value) == Double.doubleToLongBits(eq.doubleValue());
+	}
+
+	@Override
+	public String toString() {
+		return Double.toString(value);
+	}
+
 	public static DoubleValue emptyValue() {
 		return new DoubleValue(0);
 	}
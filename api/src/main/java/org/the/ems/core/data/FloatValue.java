@@ -21,15 +21,69 @@ package org.the.ems.core.data;
 
 public class FloatValue extends Value {
 
+	private final float value;
+
 	public FloatValue(float value, long timestamp) {
-		super(ValueType.FLOAT, value, timestamp);
+		super(ValueType.FLOAT, timestamp);
+		this.value = value;
 	}
 
 	public FloatValue(float value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return value;
+	}
+
+	@Override
+	public long longValue() {
+		return (long) value;
+	}
+
+	@Override
+	public int intValue() {
+		return (int) value;
+	}
+
+	@Override
+	public short shortValue() {
+		return (short) value;
+	}
+
+	@Override
+	public byte byteValue() {
+		return (byte) value;
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return (int) value != 0;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		return Float.hashCode(value);
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return Float.floatToIntBits(value) == Float.floatToIntBits(eq.floatValue());
+	}
+
+	@Override
+	public String toString() {
+		return Float.toString(value);
+	}
+
 	public static FloatValue emptyValue() {
 		return new FloatValue(0);
 	}
+
 }
@@ -21,14 +21,67 @@ package org.the.ems.core.data;
 
 public class IntValue extends Value {
 
+	private final int value;
+
 	public IntValue(int value, long timestamp) {
-		super(ValueType.INTEGER, value, timestamp);
+		super(ValueType.INTEGER, timestamp);
+		this.value = value;
 	}
 
 	public IntValue(int value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return value;
+	}
+
+	@Override
+	public long longValue() {
+		return value;
+	}
+
+	@Override
+	public int intValue() {
+		return value;
+	}
+
+	@Override
+	public short shortValue() {
+		return (short) value;
+	}
+
+	@Override
+	public byte byteValue() {
+		return (byte) value;
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return value != 0;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		return Integer.hashCode(value);
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return value == eq.intValue();
+	}
+
+	@Override
+	public String toString() {
+		return Integer.toString(value);
+	}
+
 	public static IntValue emptyValue() {
 		return new IntValue(0);
 	}
@@ -21,14 +21,67 @@ package org.the.ems.core.data;
 
 public class LongValue extends Value {
 
+	private final long value;
+
 	public LongValue(long value, long timestamp) {
-		super(ValueType.LONG, value, timestamp);
+		super(ValueType.LONG, timestamp);
+		this.value = value;
 	}
 
 	public LongValue(long value) {
 		this(value, System.currentTimeMillis());
 	}
 
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return value;
+	}
+
+	@Override
+	public long longValue() {
+		return value;
+	}
+
+	@Override
+	public int intValue() {
+		return (int) value;
+	}
+
+	@Override
+	public short shortValue() {
+		return (short) value;
+	}
+
+	@Override
+	public byte byteValue() {
+		return (byte) value;
+	}
+
+	@Override
+	public boolean booleanValue() {
+		return (int) value != 0;
+	}
+
+	@Override
+	protected int valueHashCode() {
+		return Long.hashCode(value);
+	}
+
+	@Override
+	protected boolean valueEquals(Value eq) {
+		return value == eq.longValue();
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(value);
+	}
+
 	public static LongValue emptyValue() {
 		return new LongValue(0);
 	}
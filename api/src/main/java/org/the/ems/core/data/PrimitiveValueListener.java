@@ -0,0 +1,85 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Listener to be notified of received values as primitives, without a {@link Value} object
+ * being created for every received record.
+ * <p>
+ * All numeric callbacks default to {@link #onDouble(long, double)}, while values received as
+ * {@link Value} objects are bridged to the primitive callback of their {@link ValueType}.
+ */
+public interface PrimitiveValueListener extends ValueListener {
+
+	public void onDouble(long time, double value);
+
+	public default void onFloat(long time, float value) {
+		onDouble(time, value);
+	}
+
+	public default void onLong(long time, long value) {
+		onDouble(time, value);
+	}
+
+	public default void onInteger(long time, int value) {
+		onDouble(time, value);
+	}
+
+	public default void onShort(long time, short value) {
+		onDouble(time, value);
+	}
+
+	public default void onByte(long time, byte value) {
+		onDouble(time, value);
+	}
+
+	public default void onBoolean(long time, boolean value) {
+		onDouble(time, value ? 1 : 0);
+	}
+
+	@Override
+	public default void onValueReceived(Value value) {
+		long time = value.getTime();
+		switch(value.getType()) {
+		case BOOLEAN:
+			onBoolean(time, value.booleanValue());
+			break;
+		case BYTE:
+			onByte(time, value.byteValue());
+			break;
+		case SHORT:
+			onShort(time, value.shortValue());
+			break;
+		case INTEGER:
+			onInteger(time, value.intValue());
+			break;
+		case LONG:
+			onLong(time, value.longValue());
+			break;
+		case FLOAT:
+			onFloat(time, value.floatValue());
+			break;
+		default:
+			onDouble(time, value.doubleValue());
+			break;
+		}
+	}
+
+}
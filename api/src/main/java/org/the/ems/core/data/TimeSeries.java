@@ -0,0 +1,421 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Columnar, time sorted series of values of a single {@link ValueType}.
+ * <p>
+ * Timestamps and values are kept in primitive arrays, instead of a linked node and 
+ * a {@link Value} object per point. {@link Value} objects are only created when
+ * accessed explicitly with {@link #get(int)} or while iterating the series.
+ */
+public class TimeSeries implements Iterable<Value> {
+
+	private final static int CAPACITY_DEFAULT = 16;
+
+	private final ValueType type;
+
+	private long[] times;
+	private Object values;
+	private int size = 0;
+
+	public TimeSeries(ValueType type, int capacity) {
+		this.type = type;
+		this.times = new long[Math.max(capacity, 1)];
+		this.values = newColumn(type, times.length);
+	}
+
+	public TimeSeries(ValueType type) {
+		this(type, CAPACITY_DEFAULT);
+	}
+
+	public TimeSeries(ValueType type, ValueList values) {
+		this(type, values.size());
+		for (Value value : values) {
+			add(value);
+		}
+	}
+
+	public ValueType getType() {
+		return type;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public long getStartTime() {
+		if (size < 1) {
+			return -1;
+		}
+		return times[0];
+	}
+
+	public long getEndTime() {
+		if (size < 1) {
+			return -1;
+		}
+		return times[size-1];
+	}
+
+	public long getTime(int index) {
+		checkIndex(index);
+		return times[index];
+	}
+
+	public Value get(int index) {
+		checkIndex(index);
+		long time = times[index];
+		switch(type) {
+		case BOOLEAN:
+			return new BooleanValue(((boolean[]) values)[index], time);
+		case BYTE:
+			return new ByteValue(((byte[]) values)[index], time);
+		case SHORT:
+			return new ShortValue(((short[]) values)[index], time);
+		case INTEGER:
+			return new IntValue(((int[]) values)[index], time);
+		case LONG:
+			return new LongValue(((long[]) values)[index], time);
+		case FLOAT:
+			return new FloatValue(((float[]) values)[index], time);
+		default:
+			return new DoubleValue(((double[]) values)[index], time);
+		}
+	}
+
+	public double getDouble(int index) {
+		checkIndex(index);
+		switch(type) {
+		case BOOLEAN:
+			return ((boolean[]) values)[index] ? 1 : 0;
+		case BYTE:
+			return ((byte[]) values)[index];
+		case SHORT:
+			return ((short[]) values)[index];
+		case INTEGER:
+			return ((int[]) values)[index];
+		case LONG:
+			return ((long[]) values)[index];
+		case FLOAT:
+			return ((float[]) values)[index];
+		default:
+			return ((double[]) values)[index];
+		}
+	}
+
+	public long getLong(int index) {
+		checkIndex(index);
+		switch(type) {
+		case BOOLEAN:
+			return ((boolean[]) values)[index] ? 1 : 0;
+		case BYTE:
+			return ((byte[]) values)[index];
+		case SHORT:
+			return ((short[]) values)[index];
+		case INTEGER:
+			return ((int[]) values)[index];
+		case LONG:
+			return ((long[]) values)[index];
+		case FLOAT:
+			return (long) ((float[]) values)[index];
+		default:
+			return (long) ((double[]) values)[index];
+		}
+	}
+
+	public boolean getBoolean(int index) {
+		if (type == ValueType.BOOLEAN) {
+			checkIndex(index);
+			return ((boolean[]) values)[index];
+		}
+		return getLong(index) != 0;
+	}
+
+	public void add(Value value) {
+		switch(type) {
+		case BOOLEAN:
+			addBoolean(value.getTime(), value.booleanValue());
+			break;
+		case FLOAT:
+		case DOUBLE:
+			addDouble(value.getTime(), value.doubleValue());
+			break;
+		default:
+			addLong(value.getTime(), value.longValue());
+			break;
+		}
+	}
+
+	public void addDouble(long time, double value) {
+		storeDouble(insert(time), value);
+	}
+
+	public void addFloat(long time, float value) {
+		storeDouble(insert(time), value);
+	}
+
+	public void addLong(long time, long value) {
+		storeLong(insert(time), value);
+	}
+
+	public void addInteger(long time, int value) {
+		storeLong(insert(time), value);
+	}
+
+	public void addShort(long time, short value) {
+		storeLong(insert(time), value);
+	}
+
+	public void addByte(long time, byte value) {
+		storeLong(insert(time), value);
+	}
+
+	public void addBoolean(long time, boolean value) {
+		int index = insert(time);
+		if (type == ValueType.BOOLEAN) {
+			((boolean[]) values)[index] = value;
+		}
+		else {
+			storeLong(index, value ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Merges this series with another, time sorted series in linear time.
+	 * Values of the passed series supersede values of this series with equal timestamps.
+	 * 
+	 * @param series the series to merge into this one
+	 * 
+	 * @return a new series, containing the values of both series
+	 */
+	public TimeSeries merge(TimeSeries series) {
+		TimeSeries merged = new TimeSeries(type, size + series.size);
+		int i = 0;
+		int j = 0;
+		while (i < size || j < series.size) {
+			if (j >= series.size || (i < size && times[i] < series.times[j])) {
+				merged.append(this, i++);
+			}
+			else {
+				if (i < size && times[i] == series.times[j]) {
+					i++;
+				}
+				merged.append(series, j++);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Returns a copy of all values with timestamps from start (inclusive) to end (exclusive).
+	 */
+	public TimeSeries slice(long start, long end) {
+		int from = search(start);
+		int to = Math.max(search(end), from);
+		
+		TimeSeries slice = new TimeSeries(type, to - from);
+		System.arraycopy(times, from, slice.times, 0, to - from);
+		System.arraycopy(values, from, slice.values, 0, to - from);
+		slice.size = to - from;
+		return slice;
+	}
+
+	public ValueList toValueList() {
+		ValueList list = new ValueList(size);
+		for (int i = 0; i < size; i++) {
+			list.add(get(i));
+		}
+		return list;
+	}
+
+	@Override
+	public Iterator<Value> iterator() {
+		return new Iterator<Value>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Value next() {
+				if (index >= size) {
+					throw new NoSuchElementException();
+				}
+				return get(index++);
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return toValueList().toString();
+	}
+
+	/**
+	 * Returns the index of the first value with a timestamp equal to or after the passed time.
+	 */
+	private int search(long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private int insert(long time) {
+		int index = size;
+		if (size > 0 && times[size-1] > time) {
+			index = search(time);
+		}
+		if (size == times.length) {
+			grow();
+		}
+		if (index < size) {
+			System.arraycopy(times, index, times, index + 1, size - index);
+			System.arraycopy(values, index, values, index + 1, size - index);
+		}
+		times[index] = time;
+		size++;
+		return index;
+	}
+
+	private void append(TimeSeries series, int index) {
+		if (size == times.length) {
+			grow();
+		}
+		if (series.type == type) {
+			times[size] = series.times[index];
+			System.arraycopy(series.values, index, values, size, 1);
+			size++;
+		}
+		else {
+			add(series.get(index));
+		}
+	}
+
+	private void grow() {
+		int capacity = times.length + (times.length >> 1) + 1;
+		long[] times = new long[capacity];
+		Object values = newColumn(type, capacity);
+		System.arraycopy(this.times, 0, times, 0, size);
+		System.arraycopy(this.values, 0, values, 0, size);
+		this.times = times;
+		this.values = values;
+	}
+
+	private void storeDouble(int index, double value) {
+		switch(type) {
+		case BOOLEAN:
+			((boolean[]) values)[index] = (int) value != 0;
+			break;
+		case BYTE:
+			((byte[]) values)[index] = (byte) value;
+			break;
+		case SHORT:
+			((short[]) values)[index] = (short) value;
+			break;
+		case INTEGER:
+			((int[]) values)[index] = (int) value;
+			break;
+		case LONG:
+			((long[]) values)[index] = (long) value;
+			break;
+		case FLOAT:
+			((float[]) values)[index] = (float) value;
+			break;
+		default:
+			((double[]) values)[index] = value;
+			break;
+		}
+	}
+
+	private void storeLong(int index, long value) {
+		switch(type) {
+		case BOOLEAN:
+			((boolean[]) values)[index] = value != 0;
+			break;
+		case BYTE:
+			((byte[]) values)[index] = (byte) value;
+			break;
+		case SHORT:
+			((short[]) values)[index] = (short) value;
+			break;
+		case INTEGER:
+			((int[]) values)[index] = (int) value;
+			break;
+		case LONG:
+			((long[]) values)[index] = value;
+			break;
+		case FLOAT:
+			((float[]) values)[index] = value;
+			break;
+		default:
+			((double[]) values)[index] = value;
+			break;
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+	}
+
+	private static Object newColumn(ValueType type, int capacity) {
+		switch(type) {
+		case BOOLEAN:
+			return new boolean[capacity];
+		case BYTE:
+			return new byte[capacity];
+		case SHORT:
+			return new short[capacity];
+		case INTEGER:
+			return new int[capacity];
+		case LONG:
+			return new long[capacity];
+		case FLOAT:
+			return new float[capacity];
+		default:
+			return new double[capacity];
+		}
+	}
+
+}
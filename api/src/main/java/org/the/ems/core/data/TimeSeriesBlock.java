@@ -0,0 +1,335 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Append only, compressed block of double values.
+ * <p>
+ * Timestamps are encoded as variable length delta of deltas and values as XOR to their previous
+ * value, storing only the meaningful bits. Regularly sampled series of slowly changing values will
+ * take a few bits per sample, instead of a {@link Value} object per sample.
+ * <p>
+ * Values may be appended by a single thread at a time, while readers decode a snapshot of the 
+ * values that were appended until their creation.
+ */
+public class TimeSeriesBlock implements Iterable<Value> {
+
+	private final static int CAPACITY_DEFAULT = 16;
+
+	private long[] words;
+	private long bits = 0;
+
+	private int count = 0;
+
+	private long timeStart;
+	private long timeLast;
+	private long timeDelta;
+
+	private long valueLast;
+	private int leadingLast = Integer.MAX_VALUE;
+	private int trailingLast = 0;
+
+	private double minimum = Double.NaN;
+	private double maximum = Double.NaN;
+
+	public TimeSeriesBlock(int capacity) {
+		this.words = new long[Math.max(capacity, 2)];
+	}
+
+	public TimeSeriesBlock() {
+		this(CAPACITY_DEFAULT);
+	}
+
+	public synchronized int size() {
+		return count;
+	}
+
+	public synchronized boolean isEmpty() {
+		return count == 0;
+	}
+
+	public synchronized long getStartTime() {
+		if (count < 1) {
+			return -1;
+		}
+		return timeStart;
+	}
+
+	public synchronized long getEndTime() {
+		if (count < 1) {
+			return -1;
+		}
+		return timeLast;
+	}
+
+	public synchronized double getMinimum() {
+		return minimum;
+	}
+
+	public synchronized double getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * Returns the number of bytes occupied by the encoded values.
+	 */
+	public synchronized int getEncodedSize() {
+		return (int) ((bits + 7) >>> 3);
+	}
+
+	public void add(Value value) {
+		add(value.getTime(), value.doubleValue());
+	}
+
+	public synchronized void add(long time, double value) {
+		if (count > 0 && time < timeLast) {
+			throw new IllegalArgumentException("Unable to append value before the end of the block: " + time);
+		}
+		long valueBits = Double.doubleToRawLongBits(value);
+		if (count == 0) {
+			timeStart = time;
+			write(time, 64);
+			write(valueBits, 64);
+		}
+		else {
+			long delta = time - timeLast;
+			writeTimeDelta(delta - timeDelta);
+			writeValue(valueBits ^ valueLast);
+			timeDelta = delta;
+		}
+		timeLast = time;
+		valueLast = valueBits;
+		count++;
+		
+		if (!Double.isNaN(value)) {
+			if (Double.isNaN(minimum) || value < minimum) {
+				minimum = value;
+			}
+			if (Double.isNaN(maximum) || value > maximum) {
+				maximum = value;
+			}
+		}
+	}
+
+	private void writeTimeDelta(long delta) {
+		if (delta == 0) {
+			write(0b0, 1);
+		}
+		else if (delta >= -64 && delta <= 63) {
+			write(0b10, 2);
+			write(delta, 7);
+		}
+		else if (delta >= -256 && delta <= 255) {
+			write(0b110, 3);
+			write(delta, 9);
+		}
+		else if (delta >= -2048 && delta <= 2047) {
+			write(0b1110, 4);
+			write(delta, 12);
+		}
+		else {
+			write(0b1111, 4);
+			write(delta, 64);
+		}
+	}
+
+	private void writeValue(long xor) {
+		if (xor == 0) {
+			write(0b0, 1);
+			return;
+		}
+		int leading = Math.min(Long.numberOfLeadingZeros(xor), 63);
+		int trailing = Long.numberOfTrailingZeros(xor);
+		if (leading >= leadingLast && trailing >= trailingLast) {
+			// Meaningful bits fit into the window of the previous value
+			write(0b10, 2);
+			write(xor >>> trailingLast, 64 - leadingLast - trailingLast);
+		}
+		else {
+			int length = 64 - leading - trailing;
+			write(0b11, 2);
+			write(leading, 6);
+			write(length - 1, 6);
+			write(xor >>> trailing, length);
+			
+			leadingLast = leading;
+			trailingLast = trailing;
+		}
+	}
+
+	private void write(long value, int length) {
+		if (((bits + length) >>> 6) >= words.length) {
+			long[] words = new long[this.words.length*2];
+			System.arraycopy(this.words, 0, words, 0, this.words.length);
+			this.words = words;
+		}
+		if (length < 64) {
+			value &= (1L << length) - 1;
+		}
+		int index = (int) (bits >>> 6);
+		int offset = (int) (bits & 63);
+		int free = 64 - offset;
+		if (length <= free) {
+			words[index] |= value << (free - length);
+		}
+		else {
+			words[index] |= value >>> (length - free);
+			words[index + 1] |= value << (64 - (length - free));
+		}
+		bits += length;
+	}
+
+	/**
+	 * Returns a reader to sequentially decode the values appended until now, without creating objects.
+	 */
+	public synchronized Reader reader() {
+		return new Reader(words, count);
+	}
+
+	@Override
+	public Iterator<Value> iterator() {
+		Reader reader = reader();
+		return new Iterator<Value>() {
+
+			@Override
+			public boolean hasNext() {
+				return reader.hasNext();
+			}
+
+			@Override
+			public Value next() {
+				if (!reader.next()) {
+					throw new NoSuchElementException();
+				}
+				return new DoubleValue(reader.getValue(), reader.getTime());
+			}
+		};
+	}
+
+	public static class Reader {
+
+		private final long[] words;
+		private final int count;
+
+		private long bits = 0;
+		private int index = 0;
+
+		private long time;
+		private long timeDelta = 0;
+
+		private long value;
+		private int leading = 0;
+		private int trailing = 0;
+
+		private Reader(long[] words, int count) {
+			this.words = words;
+			this.count = count;
+		}
+
+		public boolean hasNext() {
+			return index < count;
+		}
+
+		/**
+		 * Decodes the next value.
+		 * 
+		 * @return true if a value was decoded, false if all values were read.
+		 */
+		public boolean next() {
+			if (index >= count) {
+				return false;
+			}
+			if (index == 0) {
+				time = read(64);
+				value = read(64);
+			}
+			else {
+				timeDelta += readTimeDelta();
+				time += timeDelta;
+				value ^= readValue();
+			}
+			index++;
+			return true;
+		}
+
+		public long getTime() {
+			return time;
+		}
+
+		public double getValue() {
+			return Double.longBitsToDouble(value);
+		}
+
+		private long readTimeDelta() {
+			if (read(1) == 0) {
+				return 0;
+			}
+			if (read(1) == 0) {
+				return readSigned(7);
+			}
+			if (read(1) == 0) {
+				return readSigned(9);
+			}
+			if (read(1) == 0) {
+				return readSigned(12);
+			}
+			return read(64);
+		}
+
+		private long readValue() {
+			if (read(1) == 0) {
+				return 0;
+			}
+			if (read(1) == 1) {
+				leading = (int) read(6);
+				int length = (int) read(6) + 1;
+				trailing = 64 - leading - length;
+			}
+			return read(64 - leading - trailing) << trailing;
+		}
+
+		private long readSigned(int length) {
+			long value = read(length);
+			return (value << (64 - length)) >> (64 - length);
+		}
+
+		private long read(int length) {
+			int index = (int) (bits >>> 6);
+			int offset = (int) (bits & 63);
+			int free = 64 - offset;
+			long value;
+			if (length <= free) {
+				value = words[index] >>> (free - length);
+			}
+			else {
+				value = (words[index] << (length - free)) | (words[index + 1] >>> (64 - (length - free)));
+			}
+			if (length < 64) {
+				value &= (1L << length) - 1;
+			}
+			bits += length;
+			return value;
+		}
+	}
+
+}
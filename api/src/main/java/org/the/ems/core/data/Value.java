@@ -19,17 +19,13 @@
  */
 package org.the.ems.core.data;
 
-import java.util.Objects;
-
 public abstract class Value {
 
 	protected final ValueType type;
 
-	protected final Number value;
 	protected final long time;
 
-	public Value(ValueType type, Number value, long timestamp) {
-		this.value = value;
+	protected Value(ValueType type, long timestamp) {
 		this.time = timestamp;
 		this.type = type;
 	}
@@ -42,42 +38,35 @@ public abstract class Value {
 		return time;
 	}
 
-	public double doubleValue() {
-		return this.value.doubleValue();
-	}
+	public abstract double doubleValue();
 
-	public float floatValue() {
-		return this.value.floatValue();
-	}
+	public abstract float floatValue();
 
-	public long longValue() {
-		return this.value.longValue();
-	}
+	public abstract long longValue();
 
-	public int intValue() {
-		return this.value.intValue();
-	}
+	public abstract int intValue();
 
-	public short shortValue() {
-		return this.value.shortValue();
-	}
+	public abstract short shortValue();
 
-	public byte byteValue() {
-		return this.value.byteValue();
-	}
+	public abstract byte byteValue();
 
-	public boolean booleanValue() {
-		return this.value.intValue() != 0;
-	}
+	public abstract boolean booleanValue();
 
-	@Override
-	public String toString() {
-		return this.value.toString();
-	}
+	/**
+	 * Returns the hash code of the primitive value, as it would be returned by its boxed {@link Number}.
+	 */
+	protected abstract int valueHashCode();
+
+	/**
+	 * Compares the primitive values of two values of the same {@link ValueType}.
+	 */
+	protected abstract boolean valueEquals(Value value);
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(type, time, value);
+		int hash = 31 + type.hashCode();
+		hash = 31*hash + Long.hashCode(time);
+		return 31*hash + valueHashCode();
 	}
 
 	@Override
@@ -88,8 +77,8 @@ public abstract class Value {
 		}
 		Value eq = (Value) o;
 		return type == eq.type &&
-				Objects.equals(time, eq.time) &&
-				Objects.equals(value, eq.value);
+				time == eq.time &&
+				valueEquals(eq);
 	}
 
 }
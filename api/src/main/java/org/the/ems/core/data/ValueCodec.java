@@ -0,0 +1,284 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary codec for values and value series.
+ * <p>
+ * Encoded streams start with the {@link #VERSION} byte, followed by any number of values and
+ * terminated with an end tag. Each value is encoded as a single type tag byte, its timestamp as
+ * zigzag encoded variable length delta to the previous timestamp, and its raw primitive payload 
+ * in big-endian byte order.
+ */
+public class ValueCodec {
+
+	public final static byte VERSION = 1;
+
+	/**
+	 * The maximum number of bytes a single encoded value may occupy.
+	 */
+	public final static int VALUE_SIZE_MAX = 1 + 10 + 8;
+
+	private final static byte TAG_END = 0;
+
+	public static void encodeValue(ByteBuffer buffer, Value value) {
+		Encoder encoder = new Encoder();
+		encoder.writeHeader(buffer);
+		encoder.writeValue(buffer, value);
+	}
+
+	public static Value decodeValue(ByteBuffer buffer) {
+		Decoder decoder = new Decoder();
+		decoder.readHeader(buffer);
+		return decoder.readValue(buffer, buffer.get());
+	}
+
+	public static ByteBuffer encodeValueList(ValueList values) {
+		ByteBuffer buffer = ByteBuffer.allocate(2 + values.size()*VALUE_SIZE_MAX);
+		encodeValueList(buffer, values);
+		buffer.flip();
+		return buffer;
+	}
+
+	public static void encodeValueList(ByteBuffer buffer, ValueList values) {
+		Encoder encoder = new Encoder();
+		for (Value value : values) {
+			if (!encoder.write(buffer, value)) {
+				throw new IllegalArgumentException("Insufficient buffer capacity to encode values");
+			}
+		}
+		encoder.close(buffer);
+	}
+
+	public static ValueList decodeValueList(ByteBuffer buffer) {
+		ValueList values = new ValueList();
+		Decoder decoder = new Decoder();
+		Value value;
+		while ((value = decoder.read(buffer)) != null) {
+			values.add(value);
+		}
+		if (!decoder.isClosed()) {
+			throw new IllegalArgumentException("Incomplete encoded values");
+		}
+		return values;
+	}
+
+	public static void writeVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	public static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable length number");
+	}
+
+	public static void writeZigZag(ByteBuffer buffer, long value) {
+		writeVarLong(buffer, (value << 1) ^ (value >> 63));
+	}
+
+	public static long readZigZag(ByteBuffer buffer) {
+		long value = readVarLong(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Encodes a stream of values, with timestamps relative to the previously written value.
+	 * <p>
+	 * Values will only be written completely, allowing long series to be encoded in chunks
+	 * into a buffer that is drained in between.
+	 */
+	public static class Encoder {
+
+		private boolean header = false;
+		private long timeLast = 0;
+
+		/**
+		 * Writes the value, if the buffer has sufficient capacity left.
+		 * 
+		 * @return true if the value was written, false if the buffer needs to be drained first.
+		 */
+		public boolean write(ByteBuffer buffer, Value value) {
+			if (buffer.remaining() < (header ? 0 : 1) + VALUE_SIZE_MAX) {
+				return false;
+			}
+			if (!header) {
+				writeHeader(buffer);
+			}
+			writeValue(buffer, value);
+			return true;
+		}
+
+		/**
+		 * Terminates the stream with an end tag, if the buffer has sufficient capacity left.
+		 * 
+		 * @return true if the stream was terminated, false if the buffer needs to be drained first.
+		 */
+		public boolean close(ByteBuffer buffer) {
+			if (buffer.remaining() < (header ? 1 : 2)) {
+				return false;
+			}
+			if (!header) {
+				writeHeader(buffer);
+			}
+			buffer.put(TAG_END);
+			return true;
+		}
+
+		private void writeHeader(ByteBuffer buffer) {
+			buffer.put(VERSION);
+			header = true;
+		}
+
+		private void writeValue(ByteBuffer buffer, Value value) {
+			ValueType type = value.getType();
+			buffer.put((byte) (type.ordinal() + 1));
+			writeZigZag(buffer, value.getTime() - timeLast);
+			timeLast = value.getTime();
+			
+			switch(type) {
+			case BOOLEAN:
+				buffer.put((byte) (value.booleanValue() ? 1 : 0));
+				break;
+			case BYTE:
+				buffer.put(value.byteValue());
+				break;
+			case SHORT:
+				buffer.putShort(value.shortValue());
+				break;
+			case INTEGER:
+				buffer.putInt(value.intValue());
+				break;
+			case LONG:
+				buffer.putLong(value.longValue());
+				break;
+			case FLOAT:
+				buffer.putFloat(value.floatValue());
+				break;
+			default:
+				buffer.putDouble(value.doubleValue());
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Decodes a stream of values, written by an {@link Encoder}.
+	 * <p>
+	 * Incomplete values at the end of a buffer will be left unread, to be decoded after the
+	 * buffer was refilled.
+	 */
+	public static class Decoder {
+
+		private final static ValueType[] TYPES = ValueType.values();
+
+		private boolean header = false;
+		private boolean closed = false;
+		private long timeLast = 0;
+
+		/**
+		 * Reads the next value of the stream.
+		 * 
+		 * @return the next value, or null if the stream was closed or the buffer holds no complete value.
+		 */
+		public Value read(ByteBuffer buffer) {
+			if (closed) {
+				return null;
+			}
+			int position = buffer.position();
+			try {
+				if (!header) {
+					readHeader(buffer);
+				}
+				byte tag = buffer.get();
+				if (tag == TAG_END) {
+					closed = true;
+				}
+				else {
+					Value value = readValue(buffer, tag);
+					header = true;
+					return value;
+				}
+			} catch (BufferUnderflowException e) {
+				buffer.position(position);
+			}
+			return null;
+		}
+
+		public boolean isClosed() {
+			return closed;
+		}
+
+		private void readHeader(ByteBuffer buffer) {
+			byte version = buffer.get();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported encoding version: " + version);
+			}
+		}
+
+		private Value readValue(ByteBuffer buffer, byte tag) {
+			if (tag < 1 || tag > TYPES.length) {
+				throw new IllegalArgumentException("Unknown value type tag: " + tag);
+			}
+			long time = timeLast + readZigZag(buffer);
+			
+			Value value;
+			switch(TYPES[tag - 1]) {
+			case BOOLEAN:
+				value = new BooleanValue(buffer.get() != 0, time);
+				break;
+			case BYTE:
+				value = new ByteValue(buffer.get(), time);
+				break;
+			case SHORT:
+				value = new ShortValue(buffer.getShort(), time);
+				break;
+			case INTEGER:
+				value = new IntValue(buffer.getInt(), time);
+				break;
+			case LONG:
+				value = new LongValue(buffer.getLong(), time);
+				break;
+			case FLOAT:
+				value = new FloatValue(buffer.getFloat(), time);
+				break;
+			default:
+				value = new DoubleValue(buffer.getDouble(), time);
+				break;
+			}
+			timeLast = time;
+			return value;
+		}
+	}
+
+}
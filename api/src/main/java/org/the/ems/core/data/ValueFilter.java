@@ -0,0 +1,127 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Filter deciding whether a received value should be passed on to listeners.
+ * <p>
+ * Values will be suppressed, if they did not change by more than an absolute or relative deadband
+ * from the last value that was passed. Values will pass regardless, if no value passed for longer
+ * than the maximum silence. As filters keep the last passed value, an instance should only be
+ * used for a single channel or listener.
+ */
+public class ValueFilter {
+
+	private final double deadband;
+	private final boolean relative;
+	private final long silenceMax;
+
+	private boolean empty = true;
+	private double valueLast = Double.NaN;
+	private long timeLast = Long.MIN_VALUE;
+
+	protected ValueFilter(double deadband, boolean relative, long silenceMax) {
+		if (deadband < 0 || Double.isNaN(deadband)) {
+			throw new IllegalArgumentException("Invalid deadband: " + deadband);
+		}
+		this.deadband = deadband;
+		this.relative = relative;
+		this.silenceMax = silenceMax;
+	}
+
+	/**
+	 * Returns a filter passing only values that changed, e.g. for boolean states.
+	 */
+	public static ValueFilter changes() {
+		return new ValueFilter(0, false, 0);
+	}
+
+	/**
+	 * Returns a filter passing only values that changed by more than the passed absolute deadband.
+	 */
+	public static ValueFilter deadband(double deadband) {
+		return new ValueFilter(deadband, false, 0);
+	}
+
+	/**
+	 * Returns a filter passing only values that changed by more than the passed fraction of the last value.
+	 */
+	public static ValueFilter deadbandRelative(double deadband) {
+		return new ValueFilter(deadband, true, 0);
+	}
+
+	/**
+	 * Returns a new filter with the same deadband, passing a value as heartbeat if no value passed
+	 * for the interval in milliseconds.
+	 */
+	public ValueFilter withMaxSilence(long interval) {
+		return new ValueFilter(deadband, relative, interval);
+	}
+
+	public double getDeadband() {
+		return deadband;
+	}
+
+	public boolean isRelative() {
+		return relative;
+	}
+
+	public long getMaxSilence() {
+		return silenceMax;
+	}
+
+	public boolean accept(Value value) {
+		return accept(value.getTime(), value.doubleValue());
+	}
+
+	/**
+	 * Returns true, if the value should be passed on, and keeps it as the last passed value.
+	 */
+	public synchronized boolean accept(long time, double value) {
+		if (empty || exceeds(value) || (silenceMax > 0 && time - timeLast >= silenceMax)) {
+			empty = false;
+			valueLast = value;
+			timeLast = time;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean exceeds(double value) {
+		if (Double.isNaN(value) || Double.isNaN(valueLast)) {
+			return Double.isNaN(value) != Double.isNaN(valueLast);
+		}
+		double delta = Math.abs(value - valueLast);
+		if (relative) {
+			return delta > deadband*Math.abs(valueLast);
+		}
+		return delta > deadband;
+	}
+
+	/**
+	 * Forgets the last passed value, so the next value will pass.
+	 */
+	public synchronized void reset() {
+		empty = true;
+		valueLast = Double.NaN;
+		timeLast = Long.MIN_VALUE;
+	}
+
+}
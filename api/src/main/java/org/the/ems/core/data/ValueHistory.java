@@ -0,0 +1,56 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Rolling statistics over the most recent values of a {@link Channel}.
+ * <p>
+ * Windows may either be defined by a number of samples, or by an interval in milliseconds 
+ * before the current time. Empty windows will result in {@link Double#NaN}.
+ */
+public interface ValueHistory {
+
+	/*
+	 * Get the maximum number of samples the history holds.
+	 */
+	public int getCapacity();
+
+	/*
+	 * Get the number of samples the history currently holds.
+	 */
+	public int size();
+
+	public double getMinimum(int count);
+
+	public double getMaximum(int count);
+
+	public double getSum(int count);
+
+	public double getMean(int count);
+
+	public double getMinimumWithin(long interval);
+
+	public double getMaximumWithin(long interval);
+
+	public double getSumWithin(long interval);
+
+	public double getMeanWithin(long interval);
+
+}
@@ -19,32 +19,655 @@
  */
 package org.the.ems.core.data;
 
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
 
-public class ValueList extends LinkedList<Value> {
+/**
+ * Circular array backed list of values, always kept sorted by their timestamps.
+ * <p>
+ * Values are inserted at their position in time with a binary search, after all values with equal 
+ * timestamps. This applies to all ways of adding values, including the {@link Deque} methods, which 
+ * are kept for compatibility with the former linked list. Values are appended or prepended in constant 
+ * time, as are removals at both ends. Explicit indices are only accepted, if they keep the values sorted.
+ */
+public class ValueList extends AbstractList<Value> implements Deque<Value>, RandomAccess, Serializable {
 	private static final long serialVersionUID = -5725862833767844148L;
 
+	private static final int CAPACITY_DEFAULT = 16;
+
+	private Value[] values;
+	private int head = 0;
+	private int size = 0;
+
 	public ValueList() {
+		this(CAPACITY_DEFAULT);
+	}
+
+	public ValueList(int capacity) {
 		super();
+		values = new Value[capacity(capacity)];
 	}
 
 	public ValueList(Value value) {
-		super();
+		this();
 		add(value);
 	}
 
+	/**
+	 * Values are always kept sorted, this method is kept for compatibility.
+	 */
 	public ValueList sort() {
-		Comparator<Value> comparator = new SortTime();
-		sort(comparator);
-		
 		return this;
 	}
 
-	private class SortTime implements Comparator<Value> {
+	/**
+	 * Values are always kept sorted by their timestamps and can not be sorted in any other order.
+	 * 
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void sort(Comparator<? super Value> comparator) {
+		throw new UnsupportedOperationException("Values are always sorted by their timestamps");
+	}
+
+	/**
+	 * Replaces each value with the result of the operator and sorts the values by their new timestamps.
+	 */
+	@Override
+	public void replaceAll(UnaryOperator<Value> operator) {
+		if (size == 0) {
+			return;
+		}
+		Value[] replaced = new Value[size];
+		for (int i = 0; i < size; i++) {
+			replaced[i] = validate(operator.apply(get(i)));
+		}
+		Arrays.sort(replaced, Comparator.comparingLong(Value::getTime));
+		System.arraycopy(replaced, 0, values, 0, size);
+		for (int i = size; i < values.length; i++) {
+			values[i] = null;
+		}
+		head = 0;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Value get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[(head + index) & (values.length - 1)];
+	}
+
+	@Override
+	public Value peekFirst() {
+		if (isEmpty()) {
+			return null;
+		}
+		return get(0);
+	}
+
+	@Override
+	public Value peekLast() {
+		if (isEmpty()) {
+			return null;
+		}
+		return get(size-1);
+	}
+
+	/**
+	 * Returns the latest value with a timestamp equal to or before the passed time, or null if there is none.
+	 */
+	public Value floor(long time) {
+		int index = search(time, true);
+		if (index < 1) {
+			return null;
+		}
+		return get(index-1);
+	}
+
+	/**
+	 * Returns the earliest value with a timestamp equal to or after the passed time, or null if there is none.
+	 */
+	public Value ceiling(long time) {
+		int index = search(time, false);
+		if (index >= size) {
+			return null;
+		}
+		return get(index);
+	}
+
+	@Override
+	public boolean add(Value value) {
+		validate(value);
+		Value last = peekLast();
+		if (last == null || last.getTime() <= value.getTime()) {
+			insert(size, value);
+		}
+		else if (value.getTime() < peekFirst().getTime()) {
+			insert(0, value);
+		}
+		else {
+			insert(search(value.getTime(), true), value);
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts the value at the index, if this keeps the values sorted by their timestamps.
+	 * 
+	 * @throws IllegalArgumentException if the value does not belong at the index
+	 */
+	@Override
+	public void add(int index, Value value) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		if (!isSorted(index-1, validate(value), index)) {
+			throw new IllegalArgumentException("Value at index " + index + " would break the order in time");
+		}
+		insert(index, value);
+	}
+
+	/**
+	 * Replaces the value at the index, if this keeps the values sorted by their timestamps.
+	 * 
+	 * @throws IllegalArgumentException if the value does not belong at the index
+	 */
+	@Override
+	public Value set(int index, Value value) {
+		Value previous = get(index);
+		if (!isSorted(index-1, validate(value), index+1)) {
+			throw new IllegalArgumentException("Value at index " + index + " would break the order in time");
+		}
+		values[(head + index) & (values.length - 1)] = value;
+		return previous;
+	}
+
+	@Override
+	public Value remove(int index) {
+		Value value = get(index);
+		int mask = values.length - 1;
+		if (index < size/2) {
+			for (int i = index; i > 0; i--) {
+				values[(head + i) & mask] = values[(head + i - 1) & mask];
+			}
+			values[head] = null;
+			head = (head + 1) & mask;
+		}
+		else {
+			for (int i = index; i < size-1; i++) {
+				values[(head + i) & mask] = values[(head + i + 1) & mask];
+			}
+			values[(head + size - 1) & mask] = null;
+		}
+		size--;
+		modCount++;
+		return value;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		int count = toIndex - fromIndex;
+		if (count <= 0) {
+			return;
+		}
+		int mask = values.length - 1;
+		if (fromIndex == 0) {
+			for (int i = 0; i < count; i++) {
+				values[(head + i) & mask] = null;
+			}
+			head = (head + count) & mask;
+			size -= count;
+			modCount++;
+			return;
+		}
+		for (int i = toIndex; i < size; i++) {
+			values[(head + i - count) & mask] = values[(head + i) & mask];
+		}
+		for (int i = size - count; i < size; i++) {
+			values[(head + i) & mask] = null;
+		}
+		size -= count;
+		modCount++;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			values[(head + i) & (values.length - 1)] = null;
+		}
+		head = 0;
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Value> values) {
+		if (values.isEmpty()) {
+			return false;
+		}
+		if (values instanceof ValueList) {
+			ValueList merged = merge((ValueList) values);
+			this.values = merged.values;
+			this.head = merged.head;
+			this.size = merged.size;
+			modCount++;
+		}
+		else {
+			ensureCapacity(size + values.size());
+			for (Value value : values) {
+				add(value);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts the values at their positions in time, ignoring the passed index.
+	 */
+	@Override
+	public boolean addAll(int index, Collection<? extends Value> values) {
+		return addAll(values);
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			resize(capacity(capacity));
+		}
+	}
+
+	@Override
+	public void addFirst(Value value) {
+		add(value);
+	}
+
+	@Override
+	public void addLast(Value value) {
+		add(value);
+	}
+
+	@Override
+	public boolean offerFirst(Value value) {
+		return add(value);
+	}
+
+	@Override
+	public boolean offerLast(Value value) {
+		return add(value);
+	}
+
+	@Override
+	public boolean offer(Value value) {
+		return add(value);
+	}
+
+	@Override
+	public void push(Value value) {
+		add(value);
+	}
+
+	@Override
+	public Value removeFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return remove(0);
+	}
+
+	@Override
+	public Value removeLast() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return remove(size-1);
+	}
+
+	@Override
+	public Value remove() {
+		return removeFirst();
+	}
+
+	@Override
+	public Value pop() {
+		return removeFirst();
+	}
+
+	@Override
+	public Value pollFirst() {
+		if (isEmpty()) {
+			return null;
+		}
+		return remove(0);
+	}
+
+	@Override
+	public Value pollLast() {
+		if (isEmpty()) {
+			return null;
+		}
+		return remove(size-1);
+	}
+
+	@Override
+	public Value poll() {
+		return pollFirst();
+	}
+
+	@Override
+	public Value getFirst() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return get(0);
+	}
+
+	@Override
+	public Value getLast() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return get(size-1);
+	}
+
+	@Override
+	public Value element() {
+		return getFirst();
+	}
+
+	@Override
+	public Value peek() {
+		return peekFirst();
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object value) {
+		return remove(value);
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object value) {
+		int index = lastIndexOf(value);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public Iterator<Value> descendingIterator() {
+		return reversed().iterator();
+	}
+
+	/**
+	 * Returns a view of the values in reverse order, latest first.
+	 * <p>
+	 * The view is both a {@link java.util.List} and a {@link Deque}. Values added to it are still inserted
+	 * at their position in time, and removals are reflected by this list.
+	 */
+	public Reversed reversed() {
+		return new Reversed(this);
+	}
+
+	/**
+	 * Merges this list with another sorted list in linear time.
+	 * Values with equal timestamps of the passed list will be placed after the values of this list.
+	 * 
+	 * @param values the values to merge with this list
+	 * 
+	 * @return a new list, containing the values of both lists
+	 */
+	public ValueList merge(ValueList values) {
+		ValueList merged = new ValueList(size + values.size());
+		int i = 0;
+		int j = 0;
+		while (i < size || j < values.size()) {
+			if (j >= values.size() || (i < size && get(i).getTime() <= values.get(j).getTime())) {
+				merged.insert(merged.size, get(i++));
+			}
+			else {
+				merged.insert(merged.size, values.get(j++));
+			}
+		}
+		return merged;
+	}
+
+	private void insert(int index, Value value) {
+		if (size == values.length) {
+			resize(values.length << 1);
+		}
+		int mask = values.length - 1;
+		if (index < size/2) {
+			head = (head - 1) & mask;
+			for (int i = 0; i < index; i++) {
+				values[(head + i) & mask] = values[(head + i + 1) & mask];
+			}
+		}
+		else {
+			for (int i = size; i > index; i--) {
+				values[(head + i) & mask] = values[(head + i - 1) & mask];
+			}
+		}
+		values[(head + index) & mask] = value;
+		size++;
+		modCount++;
+	}
+
+	private void resize(int capacity) {
+		Value[] resized = new Value[capacity];
+		for (int i = 0; i < size; i++) {
+			resized[i] = values[(head + i) & (values.length - 1)];
+		}
+		values = resized;
+		head = 0;
+	}
+
+	private boolean isSorted(int previous, Value value, int next) {
+		return (previous < 0 || get(previous).getTime() <= value.getTime()) &&
+				(next >= size || value.getTime() <= get(next).getTime());
+	}
+
+	/**
+	 * Returns the index of the first value with a timestamp after, or if not inclusive
+	 * equal to or after the passed time.
+	 */
+	private int search(long time, boolean inclusive) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			long midTime = get(mid).getTime();
+			if (midTime < time || (inclusive && midTime == time)) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static Value validate(Value value) {
+		if (value == null) {
+			throw new NullPointerException("Value list does not permit null values");
+		}
+		return value;
+	}
+
+	private static int capacity(int capacity) {
+		int power = 1;
+		while (power < capacity) {
+			power <<= 1;
+		}
+		return power;
+	}
+
+	/**
+	 * Reversed view of a value list, latest value first.
+	 */
+	public static class Reversed extends AbstractList<Value> implements Deque<Value>, RandomAccess {
+
+		private final ValueList list;
+
+		private Reversed(ValueList list) {
+			this.list = list;
+		}
+
+		/**
+		 * Returns the value list in its original order.
+		 */
+		public ValueList reversed() {
+			return list;
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public Value get(int index) {
+			return list.get(list.size() - 1 - index);
+		}
+
+		@Override
+		public Value remove(int index) {
+			return list.remove(list.size() - 1 - index);
+		}
+
+		@Override
+		public void clear() {
+			list.clear();
+		}
+
+		@Override
+		public boolean add(Value value) {
+			return list.add(value);
+		}
+
+		@Override
+		public void addFirst(Value value) {
+			list.add(value);
+		}
+
+		@Override
+		public void addLast(Value value) {
+			list.add(value);
+		}
+
+		@Override
+		public boolean offerFirst(Value value) {
+			return list.add(value);
+		}
+
+		@Override
+		public boolean offerLast(Value value) {
+			return list.add(value);
+		}
+
+		@Override
+		public boolean offer(Value value) {
+			return list.add(value);
+		}
+
+		@Override
+		public void push(Value value) {
+			list.add(value);
+		}
+
+		@Override
+		public Value removeFirst() {
+			return list.removeLast();
+		}
+
+		@Override
+		public Value removeLast() {
+			return list.removeFirst();
+		}
+
+		@Override
+		public Value remove() {
+			return list.removeLast();
+		}
+
+		@Override
+		public Value pop() {
+			return list.removeLast();
+		}
+
+		@Override
+		public Value pollFirst() {
+			return list.pollLast();
+		}
+
+		@Override
+		public Value pollLast() {
+			return list.pollFirst();
+		}
+
 		@Override
-		public int compare(Value v1, Value v2) {
-			return (int) (v1.getTime() - v2.getTime());
+		public Value poll() {
+			return list.pollLast();
+		}
+
+		@Override
+		public Value getFirst() {
+			return list.getLast();
+		}
+
+		@Override
+		public Value getLast() {
+			return list.getFirst();
+		}
+
+		@Override
+		public Value element() {
+			return list.getLast();
+		}
+
+		@Override
+		public Value peekFirst() {
+			return list.peekLast();
+		}
+
+		@Override
+		public Value peekLast() {
+			return list.peekFirst();
+		}
+
+		@Override
+		public Value peek() {
+			return list.peekLast();
+		}
+
+		@Override
+		public boolean removeFirstOccurrence(Object value) {
+			return list.removeLastOccurrence(value);
+		}
+
+		@Override
+		public boolean removeLastOccurrence(Object value) {
+			return list.removeFirstOccurrence(value);
+		}
+
+		@Override
+		public Iterator<Value> descendingIterator() {
+			return list.iterator();
 		}
 	}
+
 }
@@ -23,6 +23,14 @@ public interface ValueListener {
 
 	public void onValueReceived(Value value);
 
+	/*
+	 * Conflating listeners will only be notified of the latest value, if values were received
+	 * faster than the listener handled them.
+	 */
+	public default boolean isConflating() {
+		return false;
+	}
+
 //	public void onErrorOccurred();
 
 }
@@ -19,14 +19,36 @@
  */
 package org.the.ems.core.data;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public class ValueTypeConverter {
 
 	private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
 
+	private final static byte[] hexValues = new byte[128];
+
+	static {
+		for (int i = 0; i < hexValues.length; i++) {
+			hexValues[i] = -1;
+		}
+		for (int i = 0; i < 10; i++) {
+			hexValues['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			hexValues['A' + i] = (byte) (10 + i);
+			hexValues['a' + i] = (byte) (10 + i);
+		}
+	}
+
 	public static String bytesToHex(byte[] bytes) {
-		char[] hexChars = new char[bytes.length * 2];
-		for ( int j = 0; j < bytes.length; j++ ) {
-			int v = bytes[j] & 0xFF;
+		return bytesToHex(bytes, 0, bytes.length);
+	}
+
+	public static String bytesToHex(byte[] bytes, int offset, int length) {
+		char[] hexChars = new char[length * 2];
+		for ( int j = 0; j < length; j++ ) {
+			int v = bytes[offset + j] & 0xFF;
 			hexChars[j * 2] = hexArray[v >>> 4];
 			hexChars[j * 2 + 1] = hexArray[v & 0x0F];
 		}
@@ -35,13 +57,204 @@ public class ValueTypeConverter {
 
 	public static byte[] hexToBytes(String hexStr) {
 		byte[] bytes = new byte[hexStr.length() / 2];
-		int index;
+		hexToBytes(hexStr, bytes, 0);
+		return bytes;
+	}
 
-		for (int i = 0; i < bytes.length; i++) {
-			index = i * 2;
-			bytes[i] = (byte) Integer.parseInt(hexStr.substring(index, index + 2), 16);
+	/**
+	 * Decodes the hexadecimal characters into the passed byte array, starting at its offset.
+	 * 
+	 * @return the number of decoded bytes
+	 */
+	public static int hexToBytes(CharSequence hex, byte[] bytes, int offset) {
+		int length = hex.length() / 2;
+		for (int i = 0; i < length; i++) {
+			bytes[offset + i] = (byte) ((hexToNibble(hex.charAt(i * 2)) << 4) | hexToNibble(hex.charAt(i * 2 + 1)));
 		}
-		return bytes;
+		return length;
+	}
+
+	private static int hexToNibble(char c) {
+		int value = c < hexValues.length ? hexValues[c] : -1;
+		if (value < 0) {
+			throw new NumberFormatException("Invalid hexadecimal character: " + c);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the number of bytes a value of the passed type occupies in binary form.
+	 */
+	public static int getSize(ValueType type) {
+		switch(type) {
+		case BOOLEAN:
+		case BYTE:
+			return 1;
+		case SHORT:
+			return 2;
+		case INTEGER:
+		case FLOAT:
+			return 4;
+		default:
+			return 8;
+		}
+	}
+
+	public static Value toValue(ValueType type, byte[] bytes, int offset, ByteOrder order, long time) {
+		switch(type) {
+		case BOOLEAN:
+			return new BooleanValue(bytes[offset] != 0, time);
+		case BYTE:
+			return new ByteValue(bytes[offset], time);
+		case SHORT:
+			return new ShortValue((short) readBits(bytes, offset, 2, order), time);
+		case INTEGER:
+			return new IntValue((int) readBits(bytes, offset, 4, order), time);
+		case LONG:
+			return new LongValue(readBits(bytes, offset, 8, order), time);
+		case FLOAT:
+			return new FloatValue(Float.intBitsToFloat((int) readBits(bytes, offset, 4, order)), time);
+		default:
+			return new DoubleValue(Double.longBitsToDouble(readBits(bytes, offset, 8, order)), time);
+		}
+	}
+
+	/**
+	 * Reads a value of the passed type at the current position of the buffer, in the buffers' byte order.
+	 */
+	public static Value toValue(ValueType type, ByteBuffer buffer, long time) {
+		switch(type) {
+		case BOOLEAN:
+			return new BooleanValue(buffer.get() != 0, time);
+		case BYTE:
+			return new ByteValue(buffer.get(), time);
+		case SHORT:
+			return new ShortValue(buffer.getShort(), time);
+		case INTEGER:
+			return new IntValue(buffer.getInt(), time);
+		case LONG:
+			return new LongValue(buffer.getLong(), time);
+		case FLOAT:
+			return new FloatValue(buffer.getFloat(), time);
+		default:
+			return new DoubleValue(buffer.getDouble(), time);
+		}
+	}
+
+	public static double toDouble(ValueType type, byte[] bytes, int offset, ByteOrder order) {
+		switch(type) {
+		case FLOAT:
+			return Float.intBitsToFloat((int) readBits(bytes, offset, 4, order));
+		case DOUBLE:
+			return Double.longBitsToDouble(readBits(bytes, offset, 8, order));
+		default:
+			return toLong(type, bytes, offset, order);
+		}
+	}
+
+	public static long toLong(ValueType type, byte[] bytes, int offset, ByteOrder order) {
+		switch(type) {
+		case BOOLEAN:
+			return bytes[offset] != 0 ? 1 : 0;
+		case BYTE:
+			return bytes[offset];
+		case SHORT:
+			return (short) readBits(bytes, offset, 2, order);
+		case INTEGER:
+			return (int) readBits(bytes, offset, 4, order);
+		case LONG:
+			return readBits(bytes, offset, 8, order);
+		case FLOAT:
+			return (long) Float.intBitsToFloat((int) readBits(bytes, offset, 4, order));
+		default:
+			return (long) Double.longBitsToDouble(readBits(bytes, offset, 8, order));
+		}
+	}
+
+	/**
+	 * Writes the value into the passed byte array, starting at its offset.
+	 * 
+	 * @return the number of written bytes
+	 */
+	public static int toBytes(Value value, byte[] bytes, int offset, ByteOrder order) {
+		switch(value.getType()) {
+		case BOOLEAN:
+			bytes[offset] = (byte) (value.booleanValue() ? 1 : 0);
+			return 1;
+		case BYTE:
+			bytes[offset] = value.byteValue();
+			return 1;
+		case SHORT:
+			return writeBits(value.shortValue(), bytes, offset, 2, order);
+		case INTEGER:
+			return writeBits(value.intValue(), bytes, offset, 4, order);
+		case LONG:
+			return writeBits(value.longValue(), bytes, offset, 8, order);
+		case FLOAT:
+			return writeBits(Float.floatToRawIntBits(value.floatValue()), bytes, offset, 4, order);
+		default:
+			return writeBits(Double.doubleToRawLongBits(value.doubleValue()), bytes, offset, 8, order);
+		}
+	}
+
+	/**
+	 * Writes the value at the current position of the buffer, in the buffers' byte order.
+	 */
+	public static void toBytes(Value value, ByteBuffer buffer) {
+		switch(value.getType()) {
+		case BOOLEAN:
+			buffer.put((byte) (value.booleanValue() ? 1 : 0));
+			break;
+		case BYTE:
+			buffer.put(value.byteValue());
+			break;
+		case SHORT:
+			buffer.putShort(value.shortValue());
+			break;
+		case INTEGER:
+			buffer.putInt(value.intValue());
+			break;
+		case LONG:
+			buffer.putLong(value.longValue());
+			break;
+		case FLOAT:
+			buffer.putFloat(value.floatValue());
+			break;
+		default:
+			buffer.putDouble(value.doubleValue());
+			break;
+		}
+	}
+
+	private static long readBits(byte[] bytes, int offset, int length, ByteOrder order) {
+		long bits = 0;
+		if (order == ByteOrder.BIG_ENDIAN) {
+			for (int i = 0; i < length; i++) {
+				bits = (bits << 8) | (bytes[offset + i] & 0xFF);
+			}
+		}
+		else {
+			for (int i = length - 1; i >= 0; i--) {
+				bits = (bits << 8) | (bytes[offset + i] & 0xFF);
+			}
+		}
+		return bits;
+	}
+
+	private static int writeBits(long bits, byte[] bytes, int offset, int length, ByteOrder order) {
+		if (order == ByteOrder.BIG_ENDIAN) {
+			for (int i = length - 1; i >= 0; i--) {
+				bytes[offset + i] = (byte) bits;
+				bits >>>= 8;
+			}
+		}
+		else {
+			for (int i = 0; i < length; i++) {
+				bytes[offset + i] = (byte) bits;
+				bits >>>= 8;
+			}
+		}
+		return length;
 	}
 
 }
@@ -19,59 +19,366 @@
  */
 package org.the.ems.core.data;
 
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-public class WriteContainer extends LinkedHashMap<Channel, ValueList> {
-	private static final long serialVersionUID = 7352264303947891380L;
+/**
+ * Reusable batch of values to be written to several channels.
+ * <p>
+ * Channels are mapped to slots in a small open addressed hash table and values are kept in
+ * primitive arrays, linked per channel. After the container was {@link #reset()}, all arrays will 
+ * be reused, so a container that is kept between control actions will not create garbage.
+ * <p>
+ * To read the values without creating garbage as well, the values of a channel can be iterated
+ * by their value index, starting with {@link #getFirstValueIndex(int)} and continuing with 
+ * {@link #getNextValueIndex(int)} until it returns -1.
+ */
+public class WriteContainer implements Iterable<Channel> {
+
+	private final static int CAPACITY_DEFAULT = 8;
+
+	private Channel[] keys;
+	private int[] keySlots;
+
+	private Channel[] channels;
+	private int[] channelFirst;
+	private int[] channelLast;
+	private int channelCount = 0;
+
+	private ValueType[] types;
+	private long[] times;
+	private long[] values;
+	private int[] valueNext;
+	private int valueCount = 0;
+
+	public WriteContainer(int capacity) {
+		capacity = Math.max(capacity, 1);
+		keys = new Channel[Integer.highestOneBit(capacity)*4];
+		keySlots = new int[keys.length];
+		channels = new Channel[capacity];
+		channelFirst = new int[capacity];
+		channelLast = new int[capacity];
+		types = new ValueType[capacity];
+		times = new long[capacity];
+		values = new long[capacity];
+		valueNext = new int[capacity];
+	}
 
 	public WriteContainer() {
-		super();
+		this(CAPACITY_DEFAULT);
+	}
+
+	/**
+	 * Removes all channels and values, keeping the allocated arrays to be reused.
+	 */
+	public void reset() {
+		Arrays.fill(keys, null);
+		Arrays.fill(channels, 0, channelCount, null);
+		channelCount = 0;
+		valueCount = 0;
+	}
+
+	/**
+	 * Returns the number of channels to be written.
+	 */
+	public int size() {
+		return channelCount;
+	}
+
+	public boolean isEmpty() {
+		return channelCount == 0;
+	}
+
+	public boolean contains(Channel channel) {
+		return search(channel) >= 0;
+	}
+
+	public Channel getChannel(int index) {
+		if (index < 0 || index >= channelCount) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+channelCount);
+		}
+		return channels[index];
+	}
+
+	/**
+	 * Returns the index of the first value of the channel at the passed index, or -1 if there is none.
+	 */
+	public int getFirstValueIndex(int index) {
+		getChannel(index);
+		return channelFirst[index];
+	}
+
+	/**
+	 * Returns the index of the value added to the same channel after the passed value, or -1 if there is none.
+	 */
+	public int getNextValueIndex(int value) {
+		checkValueIndex(value);
+		return valueNext[value];
+	}
+
+	public ValueType getType(int value) {
+		checkValueIndex(value);
+		return types[value];
+	}
+
+	public long getTime(int value) {
+		checkValueIndex(value);
+		return times[value];
+	}
+
+	public double getDouble(int value) {
+		checkValueIndex(value);
+		switch(types[value]) {
+		case DOUBLE:
+		case FLOAT:
+			return Double.longBitsToDouble(values[value]);
+		default:
+			return values[value];
+		}
+	}
+
+	public long getLong(int value) {
+		checkValueIndex(value);
+		switch(types[value]) {
+		case DOUBLE:
+		case FLOAT:
+			return (long) Double.longBitsToDouble(values[value]);
+		default:
+			return values[value];
+		}
+	}
+
+	public boolean getBoolean(int value) {
+		checkValueIndex(value);
+		switch(types[value]) {
+		case DOUBLE:
+		case FLOAT:
+			return Double.longBitsToDouble(values[value]) != 0;
+		default:
+			return values[value] != 0;
+		}
+	}
+
+	/**
+	 * Returns a new value object of the passed value index.
+	 */
+	public Value getValue(int value) {
+		checkValueIndex(value);
+		return decode(value);
+	}
+
+	private void checkValueIndex(int value) {
+		if (value < 0 || value >= valueCount) {
+			throw new IndexOutOfBoundsException("Value index: "+value+", Size: "+valueCount);
+		}
+	}
+
+	/**
+	 * Returns a new list of the values to be written to the channel at the passed index.
+	 * To avoid creating garbage, the values may be iterated by their value index instead.
+	 */
+	public ValueList getValues(int index) {
+		getChannel(index);
+		ValueList list = new ValueList();
+		for (int i = channelFirst[index]; i >= 0; i = valueNext[i]) {
+			list.add(decode(i));
+		}
+		return list;
+	}
+
+	/**
+	 * Returns a new list of the values to be written to the passed channel, or null if there are none.
+	 */
+	public ValueList get(Channel channel) {
+		int index = search(channel);
+		if (index < 0) {
+			return null;
+		}
+		return getValues(index);
 	}
 
 	public boolean add(Channel channel, Value value) {
-		if (!containsKey(channel)) {
-			put(channel, new ValueList());
+		switch(value.getType()) {
+		case BOOLEAN:
+			return addBoolean(channel, value.booleanValue(), value.getTime());
+		case FLOAT:
+			return addFloat(channel, value.floatValue(), value.getTime());
+		case DOUBLE:
+			return addDouble(channel, value.doubleValue(), value.getTime());
+		default:
+			return add(channel, value.getType(), value.getTime(), value.longValue());
 		}
-		return get(channel).add(value);
 	}
 
 	public boolean addDouble(Channel channel, double value, long time) {
-		return add(channel, new DoubleValue(value, time));
+		return add(channel, ValueType.DOUBLE, time, Double.doubleToRawLongBits(value));
 	}
 
 	public boolean addFloat(Channel channel, float value, long time) {
-		return add(channel, new FloatValue(value, time));
+		return add(channel, ValueType.FLOAT, time, Double.doubleToRawLongBits(value));
 	}
 
 	public boolean addLong(Channel channel, long value, long time) {
-		return add(channel, new LongValue(value, time));
+		return add(channel, ValueType.LONG, time, value);
 	}
 
 	public boolean addInteger(Channel channel, int value, long time) {
-		return add(channel, new IntValue(value, time));
+		return add(channel, ValueType.INTEGER, time, value);
 	}
 
 	public boolean addShort(Channel channel, short value, long time) {
-		return add(channel, new ShortValue(value, time));
+		return add(channel, ValueType.SHORT, time, value);
 	}
 
 	public boolean addByte(Channel channel, byte value, long time) {
-		return add(channel, new ByteValue(value, time));
+		return add(channel, ValueType.BYTE, time, value);
 	}
 
 	public boolean addBoolean(Channel channel, boolean value, long time) {
-		return add(channel, new BooleanValue(value, time));
+		return add(channel, ValueType.BOOLEAN, time, value ? 1 : 0);
 	}
 
-	public void add(WriteContainer channels) {
-		if (channels == null) {
+	public void add(WriteContainer container) {
+		if (container == null) {
 			return;
 		}
-		for (Channel channel : channels.keySet()) {
-			for (Value value : channels.get(channel)) {
-				add(channel, value);
+		for (int c = 0; c < container.channelCount; c++) {
+			Channel channel = container.channels[c];
+			for (int i = container.channelFirst[c]; i >= 0; i = container.valueNext[i]) {
+				add(channel, container.types[i], container.times[i], container.values[i]);
+			}
+		}
+	}
+
+	@Override
+	public Iterator<Channel> iterator() {
+		return new Iterator<Channel>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < channelCount;
+			}
+
+			@Override
+			public Channel next() {
+				if (index >= channelCount) {
+					throw new NoSuchElementException();
+				}
+				return channels[index++];
+			}
+		};
+	}
+
+	private boolean add(Channel channel, ValueType type, long time, long value) {
+		if (valueCount == values.length) {
+			growValues();
+		}
+		int index = valueCount++;
+		types[index] = type;
+		times[index] = time;
+		values[index] = value;
+		valueNext[index] = -1;
+		
+		int slot = slot(channel);
+		if (channelFirst[slot] < 0) {
+			channelFirst[slot] = index;
+		}
+		else {
+			valueNext[channelLast[slot]] = index;
+		}
+		channelLast[slot] = index;
+		return true;
+	}
+
+	private Value decode(int index) {
+		long time = times[index];
+		long value = values[index];
+		switch(types[index]) {
+		case BOOLEAN:
+			return new BooleanValue(value != 0, time);
+		case BYTE:
+			return new ByteValue((byte) value, time);
+		case SHORT:
+			return new ShortValue((short) value, time);
+		case INTEGER:
+			return new IntValue((int) value, time);
+		case LONG:
+			return new LongValue(value, time);
+		case FLOAT:
+			return new FloatValue((float) Double.longBitsToDouble(value), time);
+		default:
+			return new DoubleValue(Double.longBitsToDouble(value), time);
+		}
+	}
+
+	private int search(Channel channel) {
+		int mask = keys.length - 1;
+		for (int i = hash(channel) & mask; keys[i] != null; i = (i + 1) & mask) {
+			if (keys[i].equals(channel)) {
+				return keySlots[i];
+			}
+		}
+		return -1;
+	}
+
+	private int slot(Channel channel) {
+		int mask = keys.length - 1;
+		int i = hash(channel) & mask;
+		for (; keys[i] != null; i = (i + 1) & mask) {
+			if (keys[i].equals(channel)) {
+				return keySlots[i];
+			}
+		}
+		if (channelCount == channels.length) {
+			growChannels();
+		}
+		int slot = channelCount++;
+		channels[slot] = channel;
+		channelFirst[slot] = -1;
+		if (channelCount*2 > keys.length) {
+			rehash(keys.length*2);
+		}
+		else {
+			keys[i] = channel;
+			keySlots[i] = slot;
+		}
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+		keys = new Channel[capacity];
+		keySlots = new int[capacity];
+		int mask = capacity - 1;
+		for (int slot = 0; slot < channelCount; slot++) {
+			int i = hash(channels[slot]) & mask;
+			while (keys[i] != null) {
+				i = (i + 1) & mask;
 			}
+			keys[i] = channels[slot];
+			keySlots[i] = slot;
 		}
 	}
 
+	private void growChannels() {
+		int capacity = channels.length*2;
+		channels = Arrays.copyOf(channels, capacity);
+		channelFirst = Arrays.copyOf(channelFirst, capacity);
+		channelLast = Arrays.copyOf(channelLast, capacity);
+	}
+
+	private void growValues() {
+		int capacity = values.length*2;
+		types = Arrays.copyOf(types, capacity);
+		times = Arrays.copyOf(times, capacity);
+		values = Arrays.copyOf(values, capacity);
+		valueNext = Arrays.copyOf(valueNext, capacity);
+	}
+
+	private static int hash(Channel channel) {
+		int hash = channel.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
 }
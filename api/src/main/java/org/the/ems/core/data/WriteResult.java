@@ -0,0 +1,97 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+/**
+ * Result of a value written asynchronously to a {@link Channel}.
+ * <p>
+ * The flag holds the acknowledgment of the underlying device, if available, and the latency 
+ * the time from the request of the write until it was acknowledged.
+ */
+public final class WriteResult {
+
+	public enum Status {
+		SUCCESS,
+		// Handed over to a channel that does not acknowledge writes, so the outcome is unknown
+		SUBMITTED,
+		SUPERSEDED,
+		CANCELLED,
+		FAILED;
+	}
+
+	private final String id;
+	private final Value value;
+
+	private final Status status;
+	private final String flag;
+
+	private final long latency;
+
+	public WriteResult(String id, Value value, Status status, String flag, long latency) {
+		this.id = id;
+		this.value = value;
+		this.status = status;
+		this.flag = flag;
+		this.latency = latency;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Value getValue() {
+		return value;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isSuccess() {
+		return status == Status.SUCCESS;
+	}
+
+	/*
+	 * Get the acknowledgment flag of the device, or null if none is available.
+	 */
+	public String getFlag() {
+		return flag;
+	}
+
+	/*
+	 * Get the round-trip latency in nanoseconds.
+	 */
+	public long getLatencyNanos() {
+		return latency;
+	}
+
+	/*
+	 * Get the round-trip latency in milliseconds.
+	 */
+	public double getLatency() {
+		return latency/1e6;
+	}
+
+	@Override
+	public String toString() {
+		return id + ": " + status + (flag != null ? " (" + flag + ")" : "") + " after " + getLatency() + "ms";
+	}
+
+}
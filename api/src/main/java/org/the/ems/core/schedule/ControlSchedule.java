@@ -29,8 +29,12 @@ public class ControlSchedule extends HashMap<String, Schedule> {
 
 	private final long timestamp;
 
+	public ControlSchedule(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
 	public ControlSchedule() {
-		timestamp = System.currentTimeMillis();
+		this(System.currentTimeMillis());
 	}
 
 	public long getTimestamp() {
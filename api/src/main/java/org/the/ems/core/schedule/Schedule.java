@@ -60,8 +60,8 @@ public class Schedule extends ValueList {
 
 	@Override
 	public boolean add(Value value) {
-		if (value.getTime() <= getStartTime() || (value.getTime() - getStartTime()) % interval != 0 || 
-				value.getTime() >= getEndTime()) {
+		if (!isEmpty() && (value.getTime() < getStartTime() || 
+				(value.getTime() - getStartTime()) % interval != 0)) {
 			return false;
 		}
 		return super.add(value);
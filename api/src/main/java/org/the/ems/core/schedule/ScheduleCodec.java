@@ -0,0 +1,109 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.schedule;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueCodec;
+
+/**
+ * Binary codec for schedules, based on the value streams of the {@link ValueCodec}.
+ * <p>
+ * A {@link Schedule} is encoded as version byte, its variable length interval and its value
+ * stream. A {@link ControlSchedule} is encoded as version byte, its zigzag encoded timestamp,
+ * the number of schedules and each schedule prefixed with its UTF-8 encoded key.
+ */
+public class ScheduleCodec {
+
+	public static ByteBuffer encodeSchedule(Schedule schedule) {
+		ByteBuffer buffer = ByteBuffer.allocate(getMaxSize(schedule));
+		encodeSchedule(buffer, schedule);
+		buffer.flip();
+		return buffer;
+	}
+
+	public static void encodeSchedule(ByteBuffer buffer, Schedule schedule) {
+		buffer.put(ValueCodec.VERSION);
+		ValueCodec.writeVarLong(buffer, schedule.getInterval());
+		ValueCodec.encodeValueList(buffer, schedule);
+	}
+
+	public static Schedule decodeSchedule(ByteBuffer buffer) {
+		readVersion(buffer);
+		Schedule schedule = new Schedule((int) ValueCodec.readVarLong(buffer));
+		for (Value value : ValueCodec.decodeValueList(buffer)) {
+			if (!schedule.add(value)) {
+				throw new IllegalArgumentException("Encoded value not aligned to schedule interval: " + value.getTime());
+			}
+		}
+		return schedule;
+	}
+
+	public static ByteBuffer encodeControlSchedule(ControlSchedule schedules) {
+		int size = 2 + 2*10;
+		for (Entry<String, Schedule> schedule : schedules.entrySet()) {
+			size += 10 + schedule.getKey().length()*4 + getMaxSize(schedule.getValue());
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		encodeControlSchedule(buffer, schedules);
+		buffer.flip();
+		return buffer;
+	}
+
+	public static void encodeControlSchedule(ByteBuffer buffer, ControlSchedule schedules) {
+		buffer.put(ValueCodec.VERSION);
+		ValueCodec.writeZigZag(buffer, schedules.getTimestamp());
+		ValueCodec.writeVarLong(buffer, schedules.size());
+		for (Entry<String, Schedule> schedule : schedules.entrySet()) {
+			byte[] key = schedule.getKey().getBytes(StandardCharsets.UTF_8);
+			ValueCodec.writeVarLong(buffer, key.length);
+			buffer.put(key);
+			encodeSchedule(buffer, schedule.getValue());
+		}
+	}
+
+	public static ControlSchedule decodeControlSchedule(ByteBuffer buffer) {
+		readVersion(buffer);
+		ControlSchedule schedules = new ControlSchedule(ValueCodec.readZigZag(buffer));
+		
+		long size = ValueCodec.readVarLong(buffer);
+		for (long i = 0; i < size; i++) {
+			byte[] key = new byte[(int) ValueCodec.readVarLong(buffer)];
+			buffer.get(key);
+			schedules.put(new String(key, StandardCharsets.UTF_8), decodeSchedule(buffer));
+		}
+		return schedules;
+	}
+
+	private static int getMaxSize(Schedule schedule) {
+		return 1 + 5 + 2 + schedule.size()*ValueCodec.VALUE_SIZE_MAX;
+	}
+
+	private static void readVersion(ByteBuffer buffer) {
+		byte version = buffer.get();
+		if (version != ValueCodec.VERSION) {
+			throw new IllegalArgumentException("Unsupported encoding version: " + version);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestTimeSeries {
+
+	@Test
+	public void testAdd() {
+		TimeSeries series = new TimeSeries(ValueType.DOUBLE, 2);
+		series.addDouble(3000, 3);
+		series.addDouble(1000, 1);
+		series.add(new IntValue(2, 2000));
+		series.addDouble(4000, 4);
+
+		assertEquals(4, series.size());
+		assertEquals(1000, series.getStartTime());
+		assertEquals(4000, series.getEndTime());
+		for (int i = 0; i < series.size(); i++) {
+			assertEquals((i+1)*1000, series.getTime(i));
+			assertEquals(i+1, series.getDouble(i), 0);
+		}
+		assertEquals(new DoubleValue(2, 2000), series.get(1));
+	}
+
+	@Test
+	public void testBoolean() {
+		TimeSeries series = new TimeSeries(ValueType.BOOLEAN);
+		series.addBoolean(1000, true);
+		series.addLong(2000, 0);
+
+		assertTrue(series.getBoolean(0));
+		assertFalse(series.getBoolean(1));
+		assertEquals(new BooleanValue(true, 1000), series.get(0));
+	}
+
+	@Test
+	public void testMerge() {
+		TimeSeries series = new TimeSeries(ValueType.LONG);
+		series.addLong(1000, 1);
+		series.addLong(3000, 3);
+		series.addLong(5000, 5);
+
+		TimeSeries update = new TimeSeries(ValueType.LONG);
+		update.addLong(2000, 2);
+		update.addLong(3000, 30);
+		update.addLong(6000, 6);
+
+		TimeSeries merged = series.merge(update);
+		assertEquals(5, merged.size());
+		long[] times = new long[] { 1000, 2000, 3000, 5000, 6000 };
+		long[] values = new long[] { 1, 2, 30, 5, 6 };
+		for (int i = 0; i < merged.size(); i++) {
+			assertEquals(times[i], merged.getTime(i));
+			assertEquals(values[i], merged.getLong(i));
+		}
+	}
+
+	@Test
+	public void testSlice() {
+		TimeSeries series = new TimeSeries(ValueType.INTEGER);
+		for (int i = 0; i < 10; i++) {
+			series.addInteger(i*1000, i);
+		}
+		TimeSeries slice = series.slice(2500, 5000);
+		assertEquals(2, slice.size());
+		assertEquals(3000, slice.getStartTime());
+		assertEquals(4000, slice.getEndTime());
+		assertEquals(0, series.slice(20000, 30000).size());
+	}
+
+	@Test
+	public void testValueList() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+
+		TimeSeries series = new TimeSeries(ValueType.DOUBLE, list);
+		assertEquals(list, series.toValueList());
+	}
+
+}
@@ -0,0 +1,104 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestTimeSeriesBlock {
+
+	@Test
+	public void testEncoding() {
+		Random random = new Random(1);
+		TimeSeriesBlock block = new TimeSeriesBlock(2);
+		long[] times = new long[10000];
+		double[] values = new double[times.length];
+		long time = 1600000000000L;
+		double value = 20;
+		for (int i = 0; i < times.length; i++) {
+			switch (i % 5) {
+			case 0:
+				time += 1000;
+				break;
+			case 1:
+				time += 1000 + random.nextInt(100);
+				break;
+			case 2:
+				time += random.nextInt(5000);
+				break;
+			case 3:
+				time += 86400000L;
+				break;
+			default:
+				time += 1000;
+				value += random.nextGaussian();
+				break;
+			}
+			if (i % 7 == 0) {
+				value = random.nextDouble();
+			}
+			times[i] = time;
+			values[i] = i % 11 == 0 ? Double.NaN : value;
+			block.add(time, values[i]);
+		}
+		assertEquals(times.length, block.size());
+		assertEquals(times[0], block.getStartTime());
+		assertEquals(times[times.length-1], block.getEndTime());
+
+		TimeSeriesBlock.Reader reader = block.reader();
+		for (int i = 0; i < times.length; i++) {
+			assertTrue(reader.next());
+			assertEquals(times[i], reader.getTime());
+			assertEquals(values[i], reader.getValue(), 0);
+		}
+		assertFalse(reader.next());
+	}
+
+	@Test
+	public void testCompression() {
+		TimeSeriesBlock block = new TimeSeriesBlock();
+		for (int i = 0; i < 86400; i++) {
+			block.add(1600000000000L + i*1000L, 20 + (i/600)*0.5);
+		}
+		assertTrue(block.getEncodedSize() < 86400);
+		assertEquals(20, block.getMinimum(), 0);
+		assertEquals(20 + 143*0.5, block.getMaximum(), 0);
+
+		int count = 0;
+		for (Value value : block) {
+			assertEquals(1600000000000L + count*1000L, value.getTime());
+			count++;
+		}
+		assertEquals(86400, count);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOrder() {
+		TimeSeriesBlock block = new TimeSeriesBlock();
+		block.add(2000, 1);
+		block.add(1000, 1);
+	}
+
+}
@@ -0,0 +1,80 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Objects;
+
+import org.junit.Test;
+
+public class TestValue {
+
+	@Test
+	public void testAccessors() {
+		Value value = new DoubleValue(1e10, 1000);
+		assertEquals(1e10, value.doubleValue(), 0);
+		assertEquals(10000000000L, value.longValue());
+		assertEquals(Integer.MAX_VALUE, value.intValue());
+		assertEquals(Double.valueOf(1e10).shortValue(), value.shortValue());
+		assertTrue(value.booleanValue());
+		assertFalse(new DoubleValue(0.5).booleanValue());
+
+		value = new BooleanValue(true, 1000);
+		assertEquals(1.0, value.doubleValue(), 0);
+		assertEquals(1, value.intValue());
+		assertTrue(value.booleanValue());
+		assertEquals("true", value.toString());
+	}
+
+	@Test
+	public void testHashCode() {
+		assertEquals(Objects.hash(ValueType.DOUBLE, 1000L, 1.5), new DoubleValue(1.5, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.FLOAT, 1000L, 1.5f), new FloatValue(1.5f, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.LONG, 1000L, 42L), new LongValue(42L, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.INTEGER, 1000L, 42), new IntValue(42, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.SHORT, 1000L, (short) 42), new ShortValue((short) 42, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.BYTE, 1000L, (byte) 42), new ByteValue((byte) 42, 1000).hashCode());
+		assertEquals(Objects.hash(ValueType.BOOLEAN, 1000L, 1), new BooleanValue(true, 1000).hashCode());
+	}
+
+	@Test
+	public void testEquals() {
+		assertEquals(new DoubleValue(1.5, 1000), new DoubleValue(1.5, 1000));
+		assertEquals(new DoubleValue(Double.NaN, 1000), new DoubleValue(Double.NaN, 1000));
+		assertNotEquals(new DoubleValue(1.5, 1000), new DoubleValue(1.5, 2000));
+		assertNotEquals(new DoubleValue(0.0, 1000), new DoubleValue(-0.0, 1000));
+		assertNotEquals(new DoubleValue(1, 1000), new IntValue(1, 1000));
+		assertEquals(new BooleanValue(false, 1000), new BooleanValue(false, 1000));
+	}
+
+	@Test
+	public void testToString() {
+		assertEquals("1.5", new DoubleValue(1.5).toString());
+		assertEquals("1.5", new FloatValue(1.5f).toString());
+		assertEquals("42", new LongValue(42L).toString());
+		assertEquals("42", new IntValue(42).toString());
+		assertEquals("false", new BooleanValue(false).toString());
+	}
+
+}
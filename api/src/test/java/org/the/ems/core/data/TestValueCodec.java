@@ -0,0 +1,124 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.the.ems.core.schedule.ControlSchedule;
+import org.the.ems.core.schedule.Schedule;
+import org.the.ems.core.schedule.ScheduleCodec;
+
+public class TestValueCodec {
+
+	@Test
+	public void testValues() {
+		Value[] values = new Value[] {
+				new DoubleValue(Math.PI, 1600000000000L),
+				new FloatValue(1.5f, -1000),
+				new LongValue(Long.MIN_VALUE, 0),
+				new IntValue(-42, Long.MAX_VALUE),
+				new ShortValue((short) 42, 1),
+				new ByteValue((byte) -1, 2),
+				new BooleanValue(true, 3)
+		};
+		for (Value value : values) {
+			ByteBuffer buffer = ByteBuffer.allocate(ValueCodec.VALUE_SIZE_MAX + 1);
+			ValueCodec.encodeValue(buffer, value);
+			buffer.flip();
+			assertEquals(value, ValueCodec.decodeValue(buffer));
+		}
+	}
+
+	@Test
+	public void testValueList() {
+		ValueList values = new ValueList();
+		for (int i = 0; i < 1440; i++) {
+			values.add(new DoubleValue(i*0.5, 1600000000000L + i*60000L));
+		}
+		ByteBuffer buffer = ValueCodec.encodeValueList(values);
+		assertTrue(buffer.remaining() < 1440*13);
+		assertEquals(values, ValueCodec.decodeValueList(buffer));
+	}
+
+	@Test
+	public void testStreaming() {
+		ValueList values = new ValueList();
+		for (int i = 0; i < 100; i++) {
+			values.add(new IntValue(i, i*1000L));
+		}
+		ByteBuffer stream = ByteBuffer.allocate(1024);
+		ByteBuffer chunk = ByteBuffer.allocate(32);
+		ValueCodec.Encoder encoder = new ValueCodec.Encoder();
+		for (Value value : values) {
+			if (!encoder.write(chunk, value)) {
+				chunk.flip();
+				stream.put(chunk);
+				chunk.clear();
+				assertTrue(encoder.write(chunk, value));
+			}
+		}
+		assertTrue(encoder.close(chunk));
+		chunk.flip();
+		stream.put(chunk);
+		stream.flip();
+
+		// Decode with partially filled buffers
+		ValueList decoded = new ValueList();
+		ValueCodec.Decoder decoder = new ValueCodec.Decoder();
+		ByteBuffer partial = ByteBuffer.allocate(stream.remaining());
+		partial.limit(0);
+		while (!decoder.isClosed()) {
+			Value value = decoder.read(partial);
+			if (value != null) {
+				decoded.add(value);
+			}
+			else if (!decoder.isClosed()) {
+				assertTrue(partial.limit() < stream.limit());
+				partial.limit(partial.limit() + 1);
+				partial.put(partial.limit() - 1, stream.get(partial.limit() - 1));
+			}
+		}
+		assertEquals(values, decoded);
+		assertNull(decoder.read(partial));
+	}
+
+	@Test
+	public void testSchedule() {
+		Schedule schedule = new Schedule(900000, new DoubleValue(1, 1600000000000L));
+		assertTrue(schedule.add(1500));
+		assertTrue(schedule.add(0));
+		assertFalse(schedule.add(1600000000001L, 1));
+
+		ControlSchedule schedules = new ControlSchedule(1600000000000L);
+		schedules.addInverterSchedule(schedule);
+
+		ControlSchedule decoded = ScheduleCodec.decodeControlSchedule(ScheduleCodec.encodeControlSchedule(schedules));
+		assertEquals(schedules.getTimestamp(), decoded.getTimestamp());
+		assertEquals(schedule, decoded.getInverterSchedule());
+		assertEquals(schedule.getInterval(), decoded.getInverterSchedule().getInterval());
+	}
+
+}
@@ -0,0 +1,74 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestValueFilter {
+
+	@Test
+	public void testChanges() {
+		ValueFilter filter = ValueFilter.changes();
+		assertTrue(filter.accept(new BooleanValue(true, 1000)));
+		assertFalse(filter.accept(new BooleanValue(true, 2000)));
+		assertTrue(filter.accept(new BooleanValue(false, 3000)));
+		assertFalse(filter.accept(new BooleanValue(false, 4000)));
+	}
+
+	@Test
+	public void testDeadband() {
+		ValueFilter filter = ValueFilter.deadband(0.5);
+		assertTrue(filter.accept(1000, 20.0));
+		assertFalse(filter.accept(2000, 20.4));
+		assertFalse(filter.accept(3000, 19.5));
+		assertTrue(filter.accept(4000, 20.6));
+		assertFalse(filter.accept(5000, 20.2));
+		assertTrue(filter.accept(6000, Double.NaN));
+		assertFalse(filter.accept(7000, Double.NaN));
+		assertTrue(filter.accept(8000, 20.0));
+	}
+
+	@Test
+	public void testDeadbandRelative() {
+		ValueFilter filter = ValueFilter.deadbandRelative(0.1);
+		assertTrue(filter.accept(1000, 100));
+		assertFalse(filter.accept(2000, 109));
+		assertTrue(filter.accept(3000, 111));
+		assertTrue(filter.accept(4000, 0));
+		assertTrue(filter.accept(5000, 0.001));
+	}
+
+	@Test
+	public void testMaxSilence() {
+		ValueFilter filter = ValueFilter.deadband(1).withMaxSilence(60000);
+		assertTrue(filter.accept(0, 20));
+		assertFalse(filter.accept(30000, 20));
+		assertFalse(filter.accept(59999, 20));
+		assertTrue(filter.accept(60000, 20));
+		assertFalse(filter.accept(61000, 20));
+
+		filter.reset();
+		assertTrue(filter.accept(62000, 20));
+	}
+
+}
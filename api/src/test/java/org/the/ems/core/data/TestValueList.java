@@ -0,0 +1,220 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestValueList {
+
+	private final static long DAY = 86400000L;
+
+	@Test
+	public void testSorted() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(3, 60*DAY));
+		list.add(new DoubleValue(1, 0));
+		list.add(new DoubleValue(4, 90*DAY));
+		list.add(new DoubleValue(2, 30*DAY));
+
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(i+1, list.get(i).doubleValue(), 0);
+		}
+		assertEquals(0, list.peekFirst().getTime());
+		assertEquals(90*DAY, list.peekLast().getTime());
+	}
+
+	@Test
+	public void testEqualTimes() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(3, 2000));
+		list.add(new DoubleValue(2, 1000));
+
+		assertEquals(2, list.get(1).doubleValue(), 0);
+		assertEquals(3, list.get(2).doubleValue(), 0);
+	}
+
+	@Test
+	public void testFloorCeiling() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+		list.add(new DoubleValue(3, 3000));
+
+		assertNull(list.floor(999));
+		assertEquals(1, list.floor(1000).doubleValue(), 0);
+		assertEquals(2, list.floor(2999).doubleValue(), 0);
+		assertEquals(3, list.floor(5000).doubleValue(), 0);
+
+		assertEquals(1, list.ceiling(0).doubleValue(), 0);
+		assertEquals(2, list.ceiling(1001).doubleValue(), 0);
+		assertEquals(3, list.ceiling(3000).doubleValue(), 0);
+		assertNull(list.ceiling(3001));
+	}
+
+	@Test
+	public void testMerge() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(3, 3000));
+
+		ValueList values = new ValueList();
+		values.add(new DoubleValue(0, 0));
+		values.add(new DoubleValue(2, 2000));
+		values.add(new DoubleValue(4, 40*DAY));
+
+		list.addAll(values);
+		assertEquals(5, list.size());
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(i, list.get(i).doubleValue(), 0);
+		}
+	}
+
+	@Test
+	public void testInsertIndex() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(3, 3000));
+		list.add(1, new DoubleValue(2, 2000));
+
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(i+1, list.get(i).doubleValue(), 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInsertIndexUnsorted() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(0, new DoubleValue(2, 2000));
+	}
+
+	@Test
+	public void testDeque() {
+		Deque<Value> deque = new ValueList();
+		deque.push(new DoubleValue(2, 2000));
+		deque.addFirst(new DoubleValue(3, 3000));
+		deque.offerLast(new DoubleValue(1, 1000));
+
+		assertEquals(1, deque.peekFirst().doubleValue(), 0);
+		assertEquals(3, deque.getLast().doubleValue(), 0);
+		assertEquals(3, deque.descendingIterator().next().doubleValue(), 0);
+		assertEquals(1, deque.pop().doubleValue(), 0);
+		assertEquals(3, deque.pollLast().doubleValue(), 0);
+		assertEquals(2, deque.pollFirst().doubleValue(), 0);
+		assertNull(deque.pollFirst());
+	}
+
+	@Test
+	public void testSet() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+		list.set(0, new DoubleValue(3, 1500));
+
+		assertEquals(2, list.size());
+		assertEquals(3, list.get(0).doubleValue(), 0);
+		assertEquals(2, list.get(1).doubleValue(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetUnsorted() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+		list.set(0, new DoubleValue(3, 3000));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSortComparator() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.sort(Collections.reverseOrder(Comparator.comparingLong(Value::getTime)));
+	}
+
+	@Test
+	public void testReplaceAll() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+		list.replaceAll(v -> new DoubleValue(v.doubleValue(), 3000 - v.getTime()));
+		list.add(new DoubleValue(3, 3000));
+
+		assertEquals(2, list.get(0).doubleValue(), 0);
+		assertEquals(1, list.get(1).doubleValue(), 0);
+		assertEquals(3, list.get(2).doubleValue(), 0);
+	}
+
+	@Test
+	public void testCircular() {
+		Random random = new Random(42);
+		ValueList list = new ValueList(4);
+		List<Value> expected = new ArrayList<Value>();
+		for (int i = 0; i < 1000; i++) {
+			int operation = random.nextInt(4);
+			if (operation == 0 && !expected.isEmpty()) {
+				assertEquals(expected.remove(0), list.removeFirst());
+			}
+			else if (operation == 1 && !expected.isEmpty()) {
+				assertEquals(expected.remove(expected.size()-1), list.removeLast());
+			}
+			else {
+				Value value = new DoubleValue(i, random.nextInt(100)*1000);
+				int index = 0;
+				while (index < expected.size() && expected.get(index).getTime() <= value.getTime()) {
+					index++;
+				}
+				expected.add(index, value);
+				list.add(value);
+			}
+			assertEquals(expected, list);
+		}
+		list.subList(0, list.size()/2).clear();
+		expected.subList(0, expected.size()/2).clear();
+		assertEquals(expected, list);
+	}
+
+	@Test
+	public void testReversed() {
+		ValueList list = new ValueList();
+		list.add(new DoubleValue(1, 1000));
+		list.add(new DoubleValue(2, 2000));
+		list.add(new DoubleValue(3, 3000));
+
+		ValueList.Reversed reversed = list.reversed();
+		assertEquals(3, reversed.get(0).doubleValue(), 0);
+		assertEquals(3, reversed.peekFirst().doubleValue(), 0);
+		assertEquals(1, reversed.pollLast().doubleValue(), 0);
+		assertEquals(2, list.size());
+		assertSame(list, reversed.reversed());
+	}
+
+}
@@ -0,0 +1,79 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class TestValueTypeConverter {
+
+	@Test
+	public void testHex() {
+		byte[] bytes = new byte[] { 0x00, 0x7F, (byte) 0x80, (byte) 0xFF, 0x1a };
+		assertEquals("007F80FF1A", ValueTypeConverter.bytesToHex(bytes));
+		assertArrayEquals(bytes, ValueTypeConverter.hexToBytes("007f80FF1A"));
+		assertEquals("80FF", ValueTypeConverter.bytesToHex(bytes, 2, 2));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testInvalidHex() {
+		ValueTypeConverter.hexToBytes("0G");
+	}
+
+	@Test
+	public void testByteOrder() {
+		Value[] values = new Value[] {
+				new DoubleValue(Math.E, 1000),
+				new FloatValue(-1.25f, 1000),
+				new LongValue(0x0102030405060708L, 1000),
+				new IntValue(-123456, 1000),
+				new ShortValue((short) -2, 1000),
+				new ByteValue((byte) 7, 1000),
+				new BooleanValue(true, 1000)
+		};
+		for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+			for (Value value : values) {
+				byte[] bytes = new byte[10];
+				int length = ValueTypeConverter.toBytes(value, bytes, 1, order);
+				assertEquals(ValueTypeConverter.getSize(value.getType()), length);
+				assertEquals(value, ValueTypeConverter.toValue(value.getType(), bytes, 1, order, 1000));
+				assertEquals(value.doubleValue(), ValueTypeConverter.toDouble(value.getType(), bytes, 1, order), 0);
+				assertEquals(value.longValue(), ValueTypeConverter.toLong(value.getType(), bytes, 1, order));
+
+				ByteBuffer buffer = ByteBuffer.allocate(8).order(order);
+				ValueTypeConverter.toBytes(value, buffer);
+				byte[] expected = new byte[length];
+				System.arraycopy(bytes, 1, expected, 0, length);
+				byte[] actual = new byte[length];
+				buffer.flip();
+				buffer.get(actual);
+				assertArrayEquals(expected, actual);
+				buffer.flip();
+				assertEquals(value, ValueTypeConverter.toValue(value.getType(), buffer, 1000));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.the.ems.core.config.TestChannel;
+
+public class TestWriteContainer {
+
+	@Test
+	public void testChannelOrder() {
+		WriteContainer container = new WriteContainer(2);
+		Channel[] channels = new Channel[20];
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = new TestChannel("channel"+i);
+			container.addDouble(channels[i], i, 1000);
+		}
+		container.addBoolean(channels[3], true, 2000);
+		container.addInteger(channels[3], 42, 3000);
+
+		assertEquals(channels.length, container.size());
+		for (int i = 0; i < channels.length; i++) {
+			assertSame(channels[i], container.getChannel(i));
+			assertEquals(i, container.getValues(i).get(0).doubleValue(), 0);
+		}
+		ValueList values = container.get(channels[3]);
+		assertEquals(3, values.size());
+		assertEquals(ValueType.BOOLEAN, values.get(1).getType());
+		assertTrue(values.get(1).booleanValue());
+		assertEquals(new IntValue(42, 3000), values.get(2));
+	}
+
+	@Test
+	public void testTypes() {
+		Channel channel = new TestChannel("channel");
+		WriteContainer container = new WriteContainer();
+		container.add(channel, new FloatValue(1.5f, 1));
+		container.add(channel, new LongValue(Long.MAX_VALUE, 2));
+		container.add(channel, new ShortValue((short) -7, 3));
+		container.add(channel, new ByteValue((byte) 8, 4));
+		container.add(channel, new DoubleValue(Double.NaN, 5));
+
+		ValueList values = container.get(channel);
+		assertEquals(new FloatValue(1.5f, 1), values.get(0));
+		assertEquals(new LongValue(Long.MAX_VALUE, 2), values.get(1));
+		assertEquals(new ShortValue((short) -7, 3), values.get(2));
+		assertEquals(new ByteValue((byte) 8, 4), values.get(3));
+		assertTrue(Double.isNaN(values.get(4).doubleValue()));
+	}
+
+	@Test
+	public void testReset() {
+		Channel first = new TestChannel("first");
+		Channel second = new TestChannel("second");
+		WriteContainer container = new WriteContainer();
+		container.addDouble(first, 1, 1000);
+		container.addDouble(second, 2, 1000);
+		container.reset();
+
+		assertTrue(container.isEmpty());
+		assertFalse(container.contains(first));
+		assertNull(container.get(second));
+
+		container.addDouble(second, 3, 2000);
+		assertEquals(1, container.size());
+		assertSame(second, container.getChannel(0));
+		assertEquals(1, container.getValues(0).size());
+	}
+
+	@Test
+	public void testAddContainer() {
+		Channel first = new TestChannel("first");
+		Channel second = new TestChannel("second");
+		WriteContainer container = new WriteContainer();
+		container.addDouble(first, 1, 1000);
+
+		WriteContainer other = new WriteContainer();
+		other.addDouble(second, 2, 1000);
+		other.addDouble(first, 3, 2000);
+		container.add(other);
+
+		assertEquals(2, container.size());
+		assertEquals(2, container.get(first).size());
+		assertEquals(3, container.get(first).get(1).doubleValue(), 0);
+		assertSame(second, container.getChannel(1));
+	}
+
+	@Test
+	public void testValueIndex() {
+		WriteContainer container = new WriteContainer();
+		TestChannel channel = new TestChannel("test");
+		container.addDouble(channel, 1.5, 1000);
+		container.addBoolean(channel, true, 2000);
+		container.addInteger(channel, 3, 3000);
+
+		int value = container.getFirstValueIndex(0);
+		assertEquals(1.5, container.getDouble(value), 0);
+		assertEquals(1000, container.getTime(value));
+
+		value = container.getNextValueIndex(value);
+		assertEquals(ValueType.BOOLEAN, container.getType(value));
+		assertTrue(container.getBoolean(value));
+
+		value = container.getNextValueIndex(value);
+		assertEquals(3, container.getLong(value));
+		assertEquals(3, container.getValue(value).intValue());
+		assertEquals(-1, container.getNextValueIndex(value));
+	}
+
+}
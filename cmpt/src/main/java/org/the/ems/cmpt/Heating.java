@@ -31,7 +31,6 @@ import org.the.ems.core.HeatingService;
 import org.the.ems.core.RunState;
 import org.the.ems.core.config.Configuration;
 import org.the.ems.core.config.Configurations;
-import org.the.ems.core.data.BooleanValue;
 import org.the.ems.core.data.Value;
 import org.the.ems.core.data.WriteContainer;
 import org.the.ems.core.schedule.Schedule;
@@ -120,9 +119,14 @@ public abstract class Heating extends Runnable implements HeatingService {
 		if (value.doubleValue() != 0 && value.doubleValue() > getMaxPower() || value.doubleValue() < getMinPower()) {
 			throw new ComponentException(MessageFormat.format("Invalid power value: {0}", value));
 		}
-		WriteContainer container = new WriteContainer();
-		onSet(container, value);
-		doWrite(container);
+		WriteContainer container = acquireWriteContainer();
+		try {
+			onSet(container, value);
+			doWrite(container);
+		}
+		finally {
+			releaseWriteContainer(container);
+		}
 	}
 
 	@Override
@@ -130,12 +134,17 @@ public abstract class Heating extends Runnable implements HeatingService {
 		if (value.doubleValue() <= 0 && value.doubleValue() > getMaxPower() || value.doubleValue() < getMinPower()) {
 			throw new ComponentException(MessageFormat.format("Invalid power value: {0}", value));
 		}
-		WriteContainer writeContainer = new WriteContainer();
-		writeContainer.add(state, new BooleanValue(true, value.getTime()));
-		
-		setState(RunState.STARTING);
-		onStart(writeContainer, value);
-		doWrite(writeContainer);
+		WriteContainer writeContainer = acquireWriteContainer();
+		try {
+			writeContainer.addBoolean(state, true, value.getTime());
+			
+			setState(RunState.STARTING);
+			onStart(writeContainer, value);
+			doWrite(writeContainer);
+		}
+		finally {
+			releaseWriteContainer(writeContainer);
+		}
 		startTimeLast = value.getTime();
 	}
 
@@ -20,6 +20,8 @@
 package org.the.ems.cmpt;
 
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +37,7 @@ import org.the.ems.core.data.BooleanValue;
 import org.the.ems.core.data.Channel;
 import org.the.ems.core.data.ChannelListener;
 import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueFilter;
 import org.the.ems.core.data.ValueListener;
 import org.the.ems.core.data.WriteContainer;
 import org.the.ems.core.schedule.Schedule;
@@ -57,6 +60,10 @@ public abstract class Runnable extends Component implements RunnableService {
 	protected volatile long startTimeLast = 0;
 	protected volatile long stopTimeLast = 0;
 
+	private final static int WRITE_CONTAINERS_MAX = 4;
+
+	private final Deque<WriteContainer> writeContainers = new ArrayDeque<WriteContainer>(WRITE_CONTAINERS_MAX);
+
 	@Override
 	public RunState getState() {
 		return runState;
@@ -96,7 +103,7 @@ public abstract class Runnable extends Component implements RunnableService {
 	protected void onActivate(Configurations configs) throws ComponentException {
 		super.onActivate(configs);
 		if (state != null) {
-			state.registerValueListener(new StateListener());
+			state.registerValueListener(new StateListener(), ValueFilter.changes());
 		}
 		runState = RunState.STANDBY;
 	}
@@ -141,11 +148,16 @@ public abstract class Runnable extends Component implements RunnableService {
 		if (isMaintenance()) {
 			throw new MaintenanceException("Unable to schedule component while in maintenance");
 		}
-		WriteContainer container = new WriteContainer();
-		for (Value value : schedule) {
-			onSet(container, value);
+		WriteContainer container = acquireWriteContainer();
+		try {
+			for (Value value : schedule) {
+				onSet(container, value);
+			}
+			doWrite(container);
+		}
+		finally {
+			releaseWriteContainer(container);
 		}
-		doWrite(container);
 	}
 
 	protected void doSchedule(WriteContainer container, Schedule schedule) throws ComponentException {
@@ -209,9 +221,14 @@ public abstract class Runnable extends Component implements RunnableService {
 	}
 
 	protected void doSet(Value value) throws EnergyManagementException {
-		WriteContainer container = new WriteContainer();
-		onSet(container, value);
-		doWrite(container);
+		WriteContainer container = acquireWriteContainer();
+		try {
+			onSet(container, value);
+			doWrite(container);
+		}
+		finally {
+			releaseWriteContainer(container);
+		}
 	}
 
 	protected void onSet(WriteContainer container, Value value)
@@ -240,12 +257,17 @@ public abstract class Runnable extends Component implements RunnableService {
 	}
 
 	protected void doStart(Value value) throws EnergyManagementException {
-		WriteContainer writeContainer = new WriteContainer();
-		writeContainer.add(state, new BooleanValue(true, value.getTime()));
-		
-		setState(RunState.STARTING);
-		onStart(writeContainer, value);
-		doWrite(writeContainer);
+		WriteContainer writeContainer = acquireWriteContainer();
+		try {
+			writeContainer.addBoolean(state, true, value.getTime());
+			
+			setState(RunState.STARTING);
+			onStart(writeContainer, value);
+			doWrite(writeContainer);
+		}
+		finally {
+			releaseWriteContainer(writeContainer);
+		}
 		startTimeLast = value.getTime();
 	}
 
@@ -293,12 +315,17 @@ public abstract class Runnable extends Component implements RunnableService {
 	}
 
 	protected void doStop(long time) throws EnergyManagementException {
-		WriteContainer writeContainer = new WriteContainer();
-		writeContainer.add(state, new BooleanValue(false, time));
-		
-		setState(RunState.STOPPING);
-		onStop(writeContainer, time);
-		doWrite(writeContainer);
+		WriteContainer writeContainer = acquireWriteContainer();
+		try {
+			writeContainer.addBoolean(state, false, time);
+			
+			setState(RunState.STOPPING);
+			onStop(writeContainer, time);
+			doWrite(writeContainer);
+		}
+		finally {
+			releaseWriteContainer(writeContainer);
+		}
 		stopTimeLast = time;
 	}
 
@@ -306,8 +333,32 @@ public abstract class Runnable extends Component implements RunnableService {
 		if (container.size() < 1) {
 			return;
 		}
-		for (Channel channel : container.keySet()) {
-			channel.write(container.get(channel));
+		if (content != null) {
+			content.write(container);
+			return;
+		}
+		for (int i=0; i<container.size(); i++) {
+			container.getChannel(i).write(container.getValues(i));
+		}
+	}
+
+	protected WriteContainer acquireWriteContainer() {
+		synchronized (writeContainers) {
+			WriteContainer container = writeContainers.poll();
+			if (container != null) {
+				return container;
+			}
+		}
+		return new WriteContainer();
+	}
+
+	protected void releaseWriteContainer(WriteContainer container) {
+		container.reset();
+		synchronized (writeContainers) {
+			// Containers beyond the pool size, e.g. acquired by concurrent control actions, are discarded
+			if (writeContainers.size() < WRITE_CONTAINERS_MAX) {
+				writeContainers.push(container);
+			}
 		}
 	}
 
@@ -19,9 +19,6 @@
  */
 package org.the.ems.cmpt.circ;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.the.ems.cmpt.circ.FlowTemperatureListener.CirculationTemperatureCallbacks;
 import org.the.ems.core.ComponentException;
 import org.the.ems.core.ContentManagementService;
@@ -32,8 +29,9 @@ import org.the.ems.core.config.Configurations;
 import org.the.ems.core.data.Channel;
 import org.the.ems.core.data.ChannelListener;
 import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.PrimitiveValueListener;
 import org.the.ems.core.data.Value;
-import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.data.ValueFilter;
 
 public class Circulation extends Configurable implements CirculationTemperatureCallbacks {
 
@@ -79,12 +77,21 @@ public class Circulation extends Configurable implements CirculationTemperatureC
 	@Configuration
 	private Channel flowTempDelta;
 
-	private List<Double> flowTempValues = new ArrayList<Double>();
+	// The temperature change below which flow temperatures are ignored. Disabled by default.
+	@Configuration(mandatory=false)
+	private double flowTempDeadband = 0;
+
+	// The interval after which flow temperatures will be notified, even if unchanged.
+	@Configuration(mandatory=false)
+	private long flowTempSilenceMax = 60000;
+
+	private double flowTempDeltaSum = 0;
+	private int flowTempDeltaCount = 0;
 
 	private Value flowTempInLast = DoubleValue.emptyValue();
 	private Value flowTempOutLast = DoubleValue.emptyValue();
 	private Value flowEnergyLast = DoubleValue.emptyValue();
-	private Double flowCounterLast = Double.NaN;
+	private double flowCounterLast = Double.NaN;
 
 	@Override
 	@SuppressWarnings("unchecked")
@@ -99,13 +106,32 @@ public class Circulation extends Configurable implements CirculationTemperatureC
 		if (configs.isEnabled(SECTION)) {
 			super.configure(configs);
 			
+			// Continue from the values restored by the content management system, if available
+			Value flowEnergyValue = flowEnergy.getLatestValue();
+			if (flowEnergyValue != null) {
+				flowEnergyLast = flowEnergyValue;
+			}
+			Value flowCounterValue = flowCounter.getLatestValue();
+			if (flowCounterValue != null) {
+				flowCounterLast = flowCounterValue.doubleValue();
+			}
 			flowCounter.registerValueListener(new FlowCountListener());
-			flowTempIn.registerValueListener(new FlowTemperatureListener(this, FlowTemperature.IN));
-			flowTempOut.registerValueListener(new FlowTemperatureListener(this, FlowTemperature.OUT));
+			flowTempIn.registerValueListener(new FlowTemperatureListener(this, FlowTemperature.IN), newFlowTempFilter());
+			flowTempOut.registerValueListener(new FlowTemperatureListener(this, FlowTemperature.OUT), newFlowTempFilter());
 		}
 		return this;
 	}
 
+	/*
+	 * Each listener holds its own filter, as the flow temperature channels may be shared with other components.
+	 */
+	private ValueFilter newFlowTempFilter() {
+		if (flowTempDeadband <= 0) {
+			return null;
+		}
+		return ValueFilter.deadband(flowTempDeadband).withMaxSilence(flowTempSilenceMax);
+	}
+
 	public void register(CirculationCallbacks callbacks) {
 		this.callbacks = callbacks;
 	}
@@ -139,7 +165,8 @@ public class Circulation extends Configurable implements CirculationTemperatureC
 				Value value = new DoubleValue(delta, flowTempOutLast.getTime());
 				
 				flowTempDelta.setLatestValue(value);
-				flowTempValues.add(delta);
+				flowTempDeltaSum += delta;
+				flowTempDeltaCount++;
 				if (callbacks != null) {
 					callbacks.onTemperatureDeltaUpdated(value);
 				}
@@ -147,22 +174,19 @@ public class Circulation extends Configurable implements CirculationTemperatureC
 		}
 	}
 
-	private class FlowCountListener implements ValueListener {
+	private class FlowCountListener implements PrimitiveValueListener {
 
 		@Override
-		public void onValueReceived(Value counter) {
-			if (!flowCounterLast.isNaN()) {
+		public void onDouble(long time, double counter) {
+			if (!Double.isNaN(flowCounterLast)) {
 				// Flow since last calculation in kilogram
-				double flowMass = (counter.doubleValue() - flowCounterLast)*flowDensity;
+				double flowMass = (counter - flowCounterLast)*flowDensity;
 				
 				double tempDelta = 0;
-				if (flowTempValues.size() > 0) {
-					tempDelta = 0;
-					for (double temp : flowTempValues) {
-						tempDelta += temp;
-					}
-					tempDelta /= flowTempValues.size();
-					flowTempValues.clear();
+				if (flowTempDeltaCount > 0) {
+					tempDelta = flowTempDeltaSum/flowTempDeltaCount;
+					flowTempDeltaSum = 0;
+					flowTempDeltaCount = 0;
 				}
 				else {
 					Value value = flowTempDelta.getLatestValue();
@@ -172,15 +196,15 @@ public class Circulation extends Configurable implements CirculationTemperatureC
 				double energy = flowSpecificHeat*flowMass*tempDelta;
 				
 				// Calculate average power since last counter tick
-				long timeDelta = (counter.getTime() - flowEnergyLast.getTime())/1000;
+				long timeDelta = (time - flowEnergyLast.getTime())/1000;
 				double power = energy/timeDelta;
-				flowPower.setLatestValue(new DoubleValue(power, counter.getTime()));
+				flowPower.setLatestValue(new DoubleValue(power, time));
 				
 				double energyTotal = flowEnergyLast.doubleValue() + energy/3600;
-				flowEnergyLast = new DoubleValue(energyTotal, counter.getTime());
+				flowEnergyLast = new DoubleValue(energyTotal, time);
 				flowEnergy.setLatestValue(flowEnergyLast);
 			}
-			flowCounterLast = counter.doubleValue();
+			flowCounterLast = counter;
 		}
 	}
 
@@ -0,0 +1,197 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openmuc.framework.data.ValueType;
+import org.the.ems.core.data.BooleanValue;
+import org.the.ems.core.data.ByteValue;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.FloatValue;
+import org.the.ems.core.data.IntValue;
+import org.the.ems.core.data.LongValue;
+import org.the.ems.core.data.PrimitiveValueListener;
+import org.the.ems.core.data.ShortValue;
+import org.the.ems.core.data.Value;
+
+/**
+ * Compares decoding records with the codec resolved once per channel to the former switch over the
+ * value type of the channel for every record, as well as dispatching primitives to listeners and
+ * encoding values to be written, for all value types.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordCodecBenchmark {
+
+	private final static int SIZE = 1024;
+
+	@Param({"BOOLEAN", "BYTE", "SHORT", "INTEGER", "LONG", "FLOAT", "DOUBLE"})
+	private ValueType type;
+
+	private RecordCodec codec;
+
+	private final org.openmuc.framework.data.Value[] records = new org.openmuc.framework.data.Value[SIZE];
+	private final Value[] values = new Value[SIZE];
+	private long time;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		codec = RecordCodec.forType(type);
+		time = System.currentTimeMillis();
+		for (int i = 0; i < SIZE; i++) {
+			values[i] = newValue(type, random.nextInt(), time + i);
+			records[i] = ChannelWrapper.encodeValue(values[i]);
+		}
+	}
+
+	@Benchmark
+	public void decode(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(codec.decode(records[i], time + i));
+		}
+	}
+
+	@Benchmark
+	public void decodeSwitch(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(decode(records[i], type, time + i));
+		}
+	}
+
+	@Benchmark
+	public void dispatch(Blackhole blackhole) {
+		PrimitiveValueListener listener = new BlackholeListener(blackhole);
+		for (int i = 0; i < SIZE; i++) {
+			codec.dispatch(listener, records[i], time + i);
+		}
+	}
+
+	@Benchmark
+	public void encode(Blackhole blackhole) {
+		for (int i = 0; i < SIZE; i++) {
+			blackhole.consume(ChannelWrapper.encodeValue(values[i]));
+		}
+	}
+
+	/**
+	 * Decodes the record value as implemented before, evaluating the channel type for every record.
+	 */
+	private static Value decode(org.openmuc.framework.data.Value value, ValueType type, long time) {
+		switch(type) {
+		case BOOLEAN:
+			return new BooleanValue(value.asBoolean(), time);
+		case BYTE:
+			return new ByteValue(value.asByte(), time);
+		case SHORT:
+			return new ShortValue(value.asShort(), time);
+		case INTEGER:
+			return new IntValue(value.asInt(), time);
+		case LONG:
+			return new LongValue(value.asLong(), time);
+		case FLOAT:
+			return new FloatValue(value.asFloat(), time);
+		default:
+			return new DoubleValue(value.asDouble(), time);
+		}
+	}
+
+	private static Value newValue(ValueType type, int random, long time) {
+		switch(type) {
+		case BOOLEAN:
+			return new BooleanValue((random & 1) == 1, time);
+		case BYTE:
+			return new ByteValue((byte) random, time);
+		case SHORT:
+			return new ShortValue((short) random, time);
+		case INTEGER:
+			return new IntValue(random, time);
+		case LONG:
+			return new LongValue(random*31L, time);
+		case FLOAT:
+			return new FloatValue(random/1000f, time);
+		default:
+			return new DoubleValue(random/1000.0, time);
+		}
+	}
+
+	private static class BlackholeListener implements PrimitiveValueListener {
+
+		private final Blackhole blackhole;
+
+		private BlackholeListener(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void onDouble(long time, double value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onFloat(long time, float value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onLong(long time, long value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onInteger(long time, int value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onShort(long time, short value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onByte(long time, byte value) {
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void onBoolean(long time, boolean value) {
+			blackhole.consume(value);
+		}
+	}
+
+}
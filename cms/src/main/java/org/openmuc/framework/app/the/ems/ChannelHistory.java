@@ -0,0 +1,218 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import org.the.ems.core.data.ValueHistory;
+
+/**
+ * Fixed capacity ring buffer of the latest channel values.
+ * <p>
+ * Sums are answered from a running prefix sum in constant time. Minima and maxima are kept in 
+ * monotonic deques, answering queries over the whole buffer in constant time and over shorter
+ * windows with a binary search over the deque. Windows defined by an interval first need to find 
+ * their oldest sample with a binary search over the timestamps, in logarithmic time.
+ */
+class ChannelHistory implements ValueHistory {
+
+	private final int capacity;
+
+	private final long[] times;
+	private final double[] values;
+	private final double[] sums;
+
+	private final long[] minQueue;
+	private long minHead = 0;
+	private long minTail = 0;
+
+	private final long[] maxQueue;
+	private long maxHead = 0;
+	private long maxTail = 0;
+
+	/**
+	 * Sequence number of the next sample. The slot of a sample is its sequence modulo the capacity.
+	 */
+	private long count = 0;
+
+	ChannelHistory(int capacity) {
+		this.capacity = capacity;
+		this.times = new long[capacity];
+		this.values = new double[capacity];
+		this.sums = new double[capacity + 1];
+		this.minQueue = new long[capacity];
+		this.maxQueue = new long[capacity];
+	}
+
+	@Override
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public synchronized int size() {
+		return (int) Math.min(count, capacity);
+	}
+
+	synchronized void add(long time, double value) {
+		if (Double.isNaN(value) || (count > 0 && time < times[slot(count - 1)])) {
+			return;
+		}
+		long sequence = count;
+		long expired = sequence - capacity;
+		while (minHead < minTail && minQueue[(int) (minHead % capacity)] <= expired) {
+			minHead++;
+		}
+		while (maxHead < maxTail && maxQueue[(int) (maxHead % capacity)] <= expired) {
+			maxHead++;
+		}
+		while (minHead < minTail && values[slot(minQueue[(int) ((minTail - 1) % capacity)])] >= value) {
+			minTail--;
+		}
+		while (maxHead < maxTail && values[slot(maxQueue[(int) ((maxTail - 1) % capacity)])] <= value) {
+			maxTail--;
+		}
+		double sum = 0;
+		if (sequence > 0) {
+			sum = sums[sumSlot(sequence - 1)];
+		}
+		int sumSlot = sumSlot(sequence);
+		if (sumSlot == 0 && sequence > 0) {
+			// Rebase the prefix sums once per revolution, to keep their magnitude bounded
+			for (int i = 0; i < sums.length; i++) {
+				sums[i] -= sum;
+			}
+			sum = 0;
+		}
+		sums[sumSlot] = sum + value;
+		
+		int slot = slot(sequence);
+		times[slot] = time;
+		values[slot] = value;
+		
+		minQueue[(int) (minTail++ % capacity)] = sequence;
+		maxQueue[(int) (maxTail++ % capacity)] = sequence;
+		count++;
+	}
+
+	@Override
+	public synchronized double getMinimum(int count) {
+		return getExtremum(minQueue, minHead, minTail, count);
+	}
+
+	@Override
+	public synchronized double getMaximum(int count) {
+		return getExtremum(maxQueue, maxHead, maxTail, count);
+	}
+
+	@Override
+	public synchronized double getSum(int count) {
+		count = Math.min(count, size());
+		if (count < 1) {
+			return Double.NaN;
+		}
+		double sum = sums[sumSlot(this.count - 1)];
+		if (count < this.count) {
+			sum -= sums[sumSlot(this.count - 1 - count)];
+		}
+		return sum;
+	}
+
+	@Override
+	public synchronized double getMean(int count) {
+		count = Math.min(count, size());
+		return getSum(count)/count;
+	}
+
+	@Override
+	public synchronized double getMinimumWithin(long interval) {
+		return getMinimum(countWithin(interval));
+	}
+
+	@Override
+	public synchronized double getMaximumWithin(long interval) {
+		return getMaximum(countWithin(interval));
+	}
+
+	@Override
+	public synchronized double getSumWithin(long interval) {
+		return getSum(countWithin(interval));
+	}
+
+	@Override
+	public synchronized double getMeanWithin(long interval) {
+		return getMean(countWithin(interval));
+	}
+
+	private double getExtremum(long[] queue, long head, long tail, int count) {
+		count = Math.min(count, size());
+		if (count < 1) {
+			return Double.NaN;
+		}
+		long start = this.count - count;
+		
+		// Deque sequences are ascending, find the first one inside the window
+		long low = head;
+		long high = tail - 1;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (queue[(int) (mid % capacity)] < start) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return values[slot(queue[(int) (low % capacity)])];
+	}
+
+	private int countWithin(long interval) {
+		return countSince(System.currentTimeMillis() - interval);
+	}
+
+	/**
+	 * Returns the number of the latest samples with timestamps equal to or after the passed time.
+	 */
+	int countSince(long start) {
+		int size = size();
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[slot(count - size + mid)] < start) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return size - low;
+	}
+
+	private int slot(long sequence) {
+		return (int) (sequence % capacity);
+	}
+
+	/**
+	 * Prefix sums are kept for one additional sample, to subtract the sum preceding the whole window.
+	 */
+	private int sumSlot(long sequence) {
+		return (int) (sequence % sums.length);
+	}
+
+}
@@ -0,0 +1,208 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.the.ems.core.data.ValueListener;
+
+/**
+ * Index of wildcard subscriptions, organized as a trie over the segments of channel ids.
+ * <p>
+ * Patterns may contain the wildcards <code>?</code> and <code>*</code>, with the same meaning as for the
+ * configuration of channels. Each subscription is stored at the node of the literal segments preceding its
+ * first wildcard, so only patterns sharing a prefix with a channel id need to be matched against it.
+ */
+class ChannelPatterns {
+
+	private final static String SEPARATORS = "_./:";
+
+	private final Node root = new Node();
+
+	private int size = 0;
+
+	static boolean isPattern(String id) {
+		return id.indexOf('*') >= 0 || id.indexOf('?') >= 0;
+	}
+
+	public synchronized Subscription add(String pattern, ValueListener listener) {
+		Node node = root;
+		for (String segment : parsePrefix(pattern)) {
+			node = node.children.computeIfAbsent(segment, s -> new Node());
+		}
+		for (Subscription subscription : node.subscriptions) {
+			if (subscription.pattern.equals(pattern) && subscription.listener.equals(listener)) {
+				return subscription;
+			}
+		}
+		Subscription subscription = new Subscription(pattern, listener);
+		node.subscriptions.add(subscription);
+		size++;
+		
+		return subscription;
+	}
+
+	public synchronized Subscription remove(String pattern, ValueListener listener) {
+		List<Node> path = new ArrayList<Node>();
+		Node node = root;
+		path.add(node);
+		for (String segment : parsePrefix(pattern)) {
+			node = node.children.get(segment);
+			if (node == null) {
+				return null;
+			}
+			path.add(node);
+		}
+		Iterator<Subscription> subscriptions = node.subscriptions.iterator();
+		while (subscriptions.hasNext()) {
+			Subscription subscription = subscriptions.next();
+			if (subscription.pattern.equals(pattern) && subscription.listener.equals(listener)) {
+				subscriptions.remove();
+				size--;
+				
+				// Prune empty branches of the trie
+				List<String> segments = parsePrefix(pattern);
+				for (int i = path.size() - 1; i > 0 && path.get(i).isEmpty(); i--) {
+					path.get(i - 1).children.remove(segments.get(i - 1));
+				}
+				return subscription;
+			}
+		}
+		return null;
+	}
+
+	public synchronized List<Subscription> match(String id) {
+		List<Subscription> result = new ArrayList<Subscription>();
+		if (size == 0) {
+			return result;
+		}
+		Node node = root;
+		int start = 0;
+		while (node != null) {
+			for (Subscription subscription : node.subscriptions) {
+				if (subscription.matches(id)) {
+					result.add(subscription);
+				}
+			}
+			int end = indexOfSeparator(id, start);
+			if (end >= id.length()) {
+				break;
+			}
+			node = node.children.get(id.substring(start, end + 1));
+			start = end + 1;
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/*
+	 * Split the literal part of a pattern into segments, each including its trailing separator.
+	 */
+	private static List<String> parsePrefix(String pattern) {
+		List<String> segments = new ArrayList<String>();
+		int start = 0;
+		while (start < pattern.length()) {
+			int end = indexOfSeparator(pattern, start);
+			String segment = pattern.substring(start, Math.min(end + 1, pattern.length()));
+			if (isPattern(segment) || end >= pattern.length()) {
+				// Only complete literal segments are part of the prefix
+				break;
+			}
+			segments.add(segment);
+			start = end + 1;
+		}
+		return segments;
+	}
+
+	static Pattern compile(String pattern) {
+		StringBuilder regex = new StringBuilder();
+		int start = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '?' || c == '*') {
+				if (i > start) {
+					regex.append(Pattern.quote(pattern.substring(start, i)));
+				}
+				regex.append(c == '?' ? ".?" : ".*?");
+				start = i + 1;
+			}
+		}
+		if (start < pattern.length()) {
+			regex.append(Pattern.quote(pattern.substring(start)));
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	private static int indexOfSeparator(String id, int start) {
+		for (int i = start; i < id.length(); i++) {
+			if (SEPARATORS.indexOf(id.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return id.length();
+	}
+
+	private static class Node {
+
+		private final Map<String, Node> children = new HashMap<String, Node>();
+
+		private final List<Subscription> subscriptions = new ArrayList<Subscription>();
+
+		private boolean isEmpty() {
+			return children.isEmpty() && subscriptions.isEmpty();
+		}
+	}
+
+	static class Subscription {
+
+		private final String pattern;
+
+		private final Pattern regex;
+
+		private final ValueListener listener;
+
+		private Subscription(String pattern, ValueListener listener) {
+			this.pattern = pattern;
+			this.regex = compile(pattern);
+			this.listener = listener;
+		}
+
+		public String getPattern() {
+			return pattern;
+		}
+
+		public ValueListener getListener() {
+			return listener;
+		}
+
+		public boolean matches(String id) {
+			return regex.matcher(id).matches();
+		}
+	}
+
+}
@@ -19,28 +19,41 @@
  */
 package org.openmuc.framework.app.the.ems;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.openmuc.framework.data.Flag;
 import org.openmuc.framework.data.Record;
+import org.openmuc.framework.data.TypeConversionException;
+import org.openmuc.framework.dataaccess.ReadRecordContainer;
 import org.openmuc.framework.dataaccess.RecordListener;
-import org.the.ems.core.data.BooleanValue;
-import org.the.ems.core.data.ByteValue;
+import org.openmuc.framework.dataaccess.WriteValueContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.the.ems.core.data.Channel;
-import org.the.ems.core.data.DoubleValue;
-import org.the.ems.core.data.FloatValue;
-import org.the.ems.core.data.IntValue;
-import org.the.ems.core.data.LongValue;
-import org.the.ems.core.data.ShortValue;
+import org.the.ems.core.data.ChannelStatistics;
+import org.the.ems.core.data.PrimitiveValueListener;
 import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueFilter;
+import org.the.ems.core.data.ValueHistory;
 import org.the.ems.core.data.ValueList;
 import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.data.WriteContainer;
+import org.the.ems.core.data.WriteResult;
 
 public class ChannelWrapper implements Channel, RecordListener {
+	private final static Logger logger = LoggerFactory.getLogger(ChannelWrapper.class);
+
+	private final static int DISPATCH_RECORDS_MIN = 8;
+	private final static int DISPATCH_RECORDS_MAX = 1024;
+	private final static int DISPATCH_BATCH_MAX = 64;
 
 	/**
 	 * Interface used to notify the {@link ContentManager} 
@@ -48,6 +61,14 @@ public class ChannelWrapper implements Channel, RecordListener {
 	 */
 	public interface ChannelCallbacks {
 		public void doExecute(Runnable task);
+
+		public void doSchedule(ChannelWrapper channel, Value value);
+
+		public void doSchedule(ChannelWrapper channel, Value value, WriteFuture future);
+
+		public void doSchedule(ChannelWrapper channel, ValueList values);
+
+		public Executor getListenerExecutor(String id);
 	}
 
 	/**
@@ -55,13 +76,86 @@ public class ChannelWrapper implements Channel, RecordListener {
 	 */
 	private final ChannelCallbacks callbacks;
 
-	private final org.openmuc.framework.dataaccess.Channel channel;
-	private final List<ValueListener> listeners;
+	private volatile org.openmuc.framework.dataaccess.Channel channel;
+	private volatile RecordCodec codec;
+	private final List<ListenerMailbox> listeners;
+	private final Executor listenerExecutor;
 
-	public ChannelWrapper(ChannelCallbacks callbacks, org.openmuc.framework.dataaccess.Channel channel) {
+	private final long latestValueAgeMax;
+
+	// The latest record is kept as received, and only decoded when its value is read
+	private volatile Record latestRecord = null;
+	private volatile long latestRecordTime = 0;
+	private volatile LatestValue latestValue = null;
+
+	private final ChannelHistory history;
+
+	private volatile ValueJournal journal = null;
+	private volatile ValueJournal.Slot journalSlot = null;
+
+	private volatile boolean closed = false;
+
+	private final ChannelWrites writes = new ChannelWrites();
+
+	private final AtomicLong recordCount = new AtomicLong();
+	private final AtomicLong recordInvalidCount = new AtomicLong();
+	private final AtomicLong writeFailedCount = new AtomicLong();
+	private final AtomicLong dispatchDroppedCount = new AtomicLong();
+	private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+	private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+	// Future values of this channel in order of their timestamp, guarded by the timer wheel
+	private final ArrayDeque<TimerWheel.Entry> timers = new ArrayDeque<TimerWheel.Entry>();
+	private final OrderedDispatch dispatch = new OrderedDispatch();
+	// Drains are never dropped when overloaded, as they would lose the latest value to be written
+	private final ContentExecutor.CancellableTask drainTask = new ContentExecutor.CancellableTask() {
+
+		@Override
+		public void run() {
+			boolean drained = false;
+			try {
+				drainWrites();
+				drained = true;
+				
+			} finally {
+				if (!drained) {
+					writes.release();
+				}
+			}
+		}
+
+		@Override
+		public void onCancelled() {
+			int cancelled = writes.cancel();
+			if (cancelled > 0) {
+				logger.debug("Cancelled {} pending values to be written for channel \"{}\"", cancelled, getId());
+			}
+		}
+	};
+
+	public ChannelWrapper(ChannelCallbacks callbacks, org.openmuc.framework.dataaccess.Channel channel, 
+			int historySize, long latestValueAgeMax) {
 		this.callbacks = callbacks;
+		this.latestValueAgeMax = latestValueAgeMax;
 		this.channel = channel;
-		this.listeners = new ArrayList<ValueListener>();
+		this.codec = RecordCodec.forType(channel.getValueType());
+		this.listeners = new CopyOnWriteArrayList<ListenerMailbox>();
+		this.listenerExecutor = callbacks.getListenerExecutor(channel.getId());
+		if (historySize > 0) {
+			this.history = new ChannelHistory(historySize);
+			this.channel.addListener(this);
+		}
+		else {
+			this.history = null;
+		}
+	}
+
+	public ChannelWrapper(ChannelCallbacks callbacks, org.openmuc.framework.dataaccess.Channel channel, int historySize) {
+		this(callbacks, channel, historySize, 0);
+	}
+
+	public ChannelWrapper(ChannelCallbacks callbacks, org.openmuc.framework.dataaccess.Channel channel) {
+		this(callbacks, channel, 0);
 	}
 
 	@Override
@@ -69,10 +163,158 @@ public class ChannelWrapper implements Channel, RecordListener {
 		return channel.getId();
 	}
 
+	/*
+	 * Replaces the wrapped OpenMUC channel, e.g. after its configuration was modified,
+	 * moving the record listener registration to the new instance.
+	 */
+	void setChannel(org.openmuc.framework.dataaccess.Channel channel) {
+		synchronized (listeners) {
+			if (this.channel == channel) {
+				return;
+			}
+			if (isListening()) {
+				this.channel.removeListener(this);
+				channel.addListener(this);
+			}
+			this.channel = channel;
+			this.codec = RecordCodec.forType(channel.getValueType());
+			this.latestRecord = null;
+			this.latestValue = null;
+		}
+	}
+
+	/*
+	 * Journals all valid records of this channel, to be replayed after a restart.
+	 */
+	void setJournal(ValueJournal journal) {
+		synchronized (listeners) {
+			if (!isListening()) {
+				channel.addListener(this);
+			}
+			this.journalSlot = journal.newSlot(getId());
+			this.journal = journal;
+		}
+	}
+
+	/*
+	 * Stops listening for records of the OpenMUC channel, e.g. before the listener executor is shut down.
+	 * Records that are still being delivered are ignored.
+	 */
+	void close() {
+		synchronized (listeners) {
+			if (isListening()) {
+				channel.removeListener(this);
+			}
+			closed = true;
+		}
+	}
+
+	private boolean isListening() {
+		return listeners.size() > 0 || history != null || journal != null;
+	}
+
 	@Override
 	public Value getLatestValue() {
-		Record record = channel.getLatestRecord();
-		return ChannelWrapper.decodeRecord(record, channel.getValueType());
+		// The cached value is only served up to the maximum age, even while records are received,
+		// as a driver that stopped delivering records would otherwise leave it stale forever
+		long time = System.currentTimeMillis();
+		Record record = latestRecord;
+		LatestValue latest = latestValue;
+		if (latest != null && latest.record == record && time - latest.time <= latestValueAgeMax) {
+			return latest.value;
+		}
+		if (record != null && time - latestRecordTime <= latestValueAgeMax) {
+			return decodeLatestValue(record, latestRecordTime);
+		}
+		record = channel.getLatestRecord();
+		if (record == null || record.getFlag() != Flag.VALID || record.getValue() == null) {
+			return null;
+		}
+		latestRecordTime = time;
+		latestRecord = record;
+		
+		return decodeLatestValue(record, time);
+	}
+
+	private Value decodeLatestValue(Record record, long time) {
+		Value value = ChannelWrapper.decodeRecord(record, codec);
+		latestValue = new LatestValue(record, value, time);
+		return value;
+	}
+
+	ArrayDeque<TimerWheel.Entry> getTimers() {
+		return timers;
+	}
+
+	String getDriverId() {
+		return channel.getDriverId();
+	}
+
+	String getDeviceId() {
+		return channel.getDeviceId();
+	}
+
+	ReadRecordContainer getReadContainer() {
+		return channel.getReadContainer();
+	}
+
+	/*
+	 * Prepares the container to write the value directly, superseding any pending value of this channel.
+	 */
+	BatchWrite getWriteContainer(Value value) {
+		WriteValueContainer container = channel.getWriteContainer();
+		container.setValue(ChannelWrapper.encodeValue(value));
+		
+		return new BatchWrite(container, writes.supersede());
+	}
+
+	/*
+	 * Prepares the container to write the value at the value index of the batch directly, 
+	 * superseding any pending value of this channel, as well as the passed number of older 
+	 * values of the batch that were already due.
+	 */
+	BatchWrite getWriteContainer(WriteContainer values, int index, int coalesced) {
+		WriteValueContainer container = channel.getWriteContainer();
+		container.setValue(RecordCodec.forType(values.getType(index)).encode(values, index));
+		
+		return new BatchWrite(container, writes.supersede(coalesced));
+	}
+
+	/*
+	 * Container of a value to be written in a batch, together with the write sequence of the channel
+	 * it superseded. Containers of values superseded again before the batch was sent are skipped.
+	 */
+	class BatchWrite {
+
+		final WriteValueContainer container;
+		final long sequence;
+
+		private BatchWrite(WriteValueContainer container, long sequence) {
+			this.container = container;
+			this.sequence = sequence;
+		}
+
+		ChannelWrapper getChannel() {
+			return ChannelWrapper.this;
+		}
+
+		boolean isLatest() {
+			return writes.isLatest(sequence);
+		}
+	}
+
+	/*
+	 * Decodes a record read actively from the device and keeps it as latest value.
+	 */
+	Value onRecordRead(Record record) {
+		if (record == null || record.getFlag() != Flag.VALID || record.getValue() == null) {
+			return null;
+		}
+		long time = System.currentTimeMillis();
+		latestRecordTime = time;
+		latestRecord = record;
+		
+		return decodeLatestValue(record, time);
 	}
 
 	@Override
@@ -81,14 +323,35 @@ public class ChannelWrapper implements Channel, RecordListener {
 		return getLatestValue();
 	}
 
+	@Override
+	public ValueHistory getHistory() {
+		return history;
+	}
+
 	@Override
 	public void registerValueListener(ValueListener listener) {
 		synchronized (listeners) {
-			if (listeners.size() == 0) {
+			if (!isListening()) {
+				channel.addListener(this);
+			}
+			if (indexOf(listener) < 0) {
+				listeners.add(new ListenerMailbox(listener, null));
+			}
+		}
+	}
+
+	@Override
+	public void registerValueListener(ValueListener listener, ValueFilter filter) {
+		synchronized (listeners) {
+			if (!isListening()) {
 				channel.addListener(this);
 			}
-			if (!listeners.contains(listener)) {
-				listeners.add(listener);
+			int index = indexOf(listener);
+			if (index < 0) {
+				listeners.add(new ListenerMailbox(listener, filter));
+			}
+			else {
+				listeners.set(index, new ListenerMailbox(listener, filter));
 			}
 		}
 	}
@@ -96,146 +359,499 @@ public class ChannelWrapper implements Channel, RecordListener {
 	@Override
 	public void deregisterValueListener(ValueListener listener) {
 		synchronized (listeners) {
-			if (listeners.contains(listener)) {
-				listeners.remove(listener);
+			int index = indexOf(listener);
+			if (index >= 0) {
+				listeners.remove(index);
 			}
-			if (listeners.size() == 0) {
+			if (!isListening()) {
 				channel.removeListener(this);
 			}
 		}
 	}
 
+	private int indexOf(ValueListener listener) {
+		for (int i = 0; i < listeners.size(); i++) {
+			if (listeners.get(i).listener.equals(listener)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Sets the latest value of the OpenMUC channel synchronously, e.g. to restore it before any 
+	 * component accesses the channel.
+	 */
+	void restoreLatestValue(Value value) {
+		channel.setLatestRecord(ChannelWrapper.encodeRecord(value));
+		latestRecord = null;
+		latestValue = new LatestValue(null, value, System.currentTimeMillis());
+	}
+
 	@Override
 	public void setLatestValue(Value value) {
-		Runnable task = () -> {
-			channel.setLatestRecord(ChannelWrapper.encodeRecord(value));
-		};
-		callbacks.doExecute(task);
+		latestRecord = null;
+		latestValue = new LatestValue(null, value, System.currentTimeMillis());
+		if (writes.offerLatest(value)) {
+			callbacks.doExecute(drainTask);
+		}
 	}
 
 	@Override
 	public void write(Value value) {
-		Runnable task = () -> {
-			if (value.getTime() <= System.currentTimeMillis()) {
-				channel.write(ChannelWrapper.encodeValue(value));
+		if (value.getTime() > System.currentTimeMillis()) {
+			callbacks.doSchedule(this, value);
+		}
+		else if (writes.offer(value)) {
+			callbacks.doExecute(drainTask);
+		}
+	}
+
+	@Override
+	public CompletableFuture<WriteResult> writeAsync(Value value) {
+		WriteFuture future = new WriteFuture(getId(), value);
+		if (value.getTime() > System.currentTimeMillis()) {
+			callbacks.doSchedule(this, value, future);
+		}
+		else {
+			write(value, future);
+		}
+		return future;
+	}
+
+	/*
+	 * Offers the value to be written by the drain task, completing the future when it was written.
+	 */
+	void write(Value value, WriteFuture future) {
+		if (writes.offer(value, future)) {
+			callbacks.doExecute(drainTask);
+		}
+	}
+
+	@Override
+	public void write(ValueList values) {
+		long time = System.currentTimeMillis();
+		boolean dispatch = false;
+		int written = 0;
+		ValueList futureValues = null;
+		for (Value value : values) {
+			if (value.getTime() > time) {
+				if (futureValues == null) {
+					futureValues = new ValueList(values.size());
+				}
+				futureValues.add(value);
 			}
 			else {
-				channel.writeFuture(ChannelWrapper.encodeFutureValueList(new ValueList(value)));
+				dispatch |= writes.offer(value);
+				written++;
 			}
-		};
-		callbacks.doExecute(task);
+		}
+		// Written values are removed from the sorted list, leaving only future values to the caller
+		values.subList(0, written).clear();
+		
+		if (futureValues != null) {
+			callbacks.doSchedule(this, futureValues);
+		}
+		if (dispatch) {
+			callbacks.doExecute(drainTask);
+		}
 	}
 
-	@Override
-	public void write(ValueList values) {
-		Runnable task = () -> {
-			long time = System.currentTimeMillis();
-			
-			ListIterator<Value> iter = values.sort().listIterator();
-			while(iter.hasNext()) {
-				Value value = iter.next();
-				if(value.getTime() <= time) {
-					iter.remove();
-					
-					channel.write(ChannelWrapper.encodeValue(value));
+	private void drainWrites() {
+		while (writes.poll()) {
+			try {
+				drainPolled();
+				
+			} catch (RuntimeException e) {
+				logger.warn("Failed draining values to be written for channel \"{}\": {}", getId(), e.getMessage());
+				WriteFuture future = writes.getPolledFuture();
+				if (future != null) {
+					future.fail(e);
 				}
 			}
-			channel.writeFuture(ChannelWrapper.encodeFutureValueList(values));
-		};
-		callbacks.doExecute(task);
+		}
+	}
+
+	private void drainPolled() {
+		Value latestValue = writes.getPolledLatestValue();
+		if (latestValue != null) {
+			channel.setLatestRecord(ChannelWrapper.encodeRecord(latestValue));
+		}
+		Value value = writes.getPolledValue();
+		if (value == null) {
+			return;
+		}
+		WriteFuture future = writes.getPolledFuture();
+		if (!writes.isLatest(writes.getPolledSequence())) {
+			// A newer value was written directly, while this one was being polled
+			if (future != null) {
+				future.supersede();
+			}
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			Flag flag = channel.write(ChannelWrapper.encodeValue(value));
+			onWritten(flag, System.nanoTime() - start);
+			if (future != null) {
+				future.complete(flag);
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Failed writing value for channel \"{}\": {}", getId(), e.getMessage());
+			onWritten(null, System.nanoTime() - start);
+			if (future != null) {
+				future.fail(e);
+			}
+		}
+	}
+
+	/*
+	 * Counts a value acknowledged by the driver with the flag, or null if the write failed.
+	 */
+	void onWritten(Flag flag, long latency) {
+		writeLatency.record(latency);
+		if (flag != Flag.VALID) {
+			writeFailedCount.incrementAndGet();
+		}
+	}
+
+	/*
+	 * Returns a snapshot of the throughput and latency metrics of this channel.
+	 */
+	public ChannelStatistics getStatistics() {
+		return new ChannelStatistics(getId(), recordCount.get(), recordInvalidCount.get(), dispatchLatency.snapshot(),
+				writes.getCount(), writes.getCoalescedCount(), writeFailedCount.get(), writeLatency.snapshot());
+	}
+
+	/*
+	 * Returns the number of records, which were dropped before being delivered to the ordered listeners.
+	 */
+	public long getDispatchDroppedCount() {
+		return dispatchDroppedCount.get();
+	}
+
+	/*
+	 * Returns the number of values offered to be written or set as latest value.
+	 */
+	public long getWriteCount() {
+		return writes.getCount();
+	}
+
+	/*
+	 * Returns the number of values, which were replaced by a newer value before being written.
+	 */
+	public long getWriteCoalescedCount() {
+		return writes.getCoalescedCount();
 	}
 
 	@Override
 	public void newRecord(Record record) {
-		Value value = ChannelWrapper.decodeRecord(record, channel.getValueType());
-		if (value != null) {
-			for (ValueListener listener : listeners) {
-				listener.onValueReceived(value);
+		if (closed) {
+			return;
+		}
+		recordCount.incrementAndGet();
+		if (record.getFlag() != Flag.VALID || record.getValue() == null) {
+			// TODO: implement error warnings for certain flags
+			recordInvalidCount.incrementAndGet();
+			latestRecord = null;
+			latestValue = null;
+			return;
+		}
+		latestRecordTime = System.currentTimeMillis();
+		latestRecord = record;
+		
+		RecordCodec codec = this.codec;
+		ValueJournal journal = this.journal;
+		if (journal != null) {
+			journal.append(journalSlot, record, codec);
+		}
+		if (history != null) {
+			try {
+				history.add(record.getTimestamp(), record.getValue().asDouble());
+				
+			} catch (TypeConversionException | NumberFormatException e) {
+				logger.debug("Unable to add non-numeric value of channel \"{}\" to history: {}", getId(), e.getMessage());
+			}
+		}
+		// Listeners are notified on the stripe of this channel, to return to the driver immediately.
+		// Conflating listeners hold their own task, all others share the ordered dispatch of the channel
+		boolean ordered = false;
+		for (ListenerMailbox mailbox : listeners) {
+			if (mailbox.conflating) {
+				if (mailbox.offer(record)) {
+					listenerExecutor.execute(mailbox);
+				}
+			}
+			else {
+				ordered = true;
 			}
 		}
-		// TODO: implement error warnings for certain flags
+		if (ordered && dispatch.offer(record)) {
+			listenerExecutor.execute(dispatch);
+		}
 	}
 
-	public static Value decodeRecord(org.openmuc.framework.data.Record record, org.openmuc.framework.data.ValueType type) {
-		if (record.getFlag() == Flag.VALID) {
-			Long time = record.getTimestamp();
-			
-			org.openmuc.framework.data.Value value = record.getValue();
+	private void notifyListeners(Record record, RecordCodec codec) {
+		// Values will only be decoded, if listeners do not accept primitives
+		Value value = null;
+		boolean decoded = false;
+		for (ListenerMailbox mailbox : listeners) {
+			if (mailbox.conflating || !mailbox.accept(record)) {
+				continue;
+			}
+			ValueListener listener = mailbox.listener;
+			if (listener instanceof PrimitiveValueListener) {
+				ChannelWrapper.dispatchRecord(record, codec, (PrimitiveValueListener) listener);
+				continue;
+			}
+			if (!decoded) {
+				value = ChannelWrapper.decodeRecord(record, codec);
+				decoded = true;
+			}
 			if (value != null) {
-				try {
-					switch(type) {
-					case BOOLEAN:
-						return new BooleanValue(value.asBoolean(), time);
-					case BYTE:
-						return new ByteValue(value.asByte(), time);
-					case SHORT:
-						return new ShortValue(value.asShort(), time);
-					case INTEGER:
-						return new IntValue(value.asInt(), time);
-					case LONG:
-						return new LongValue(value.asLong(), time);
-					case FLOAT:
-						return new FloatValue(value.asFloat(), time);
-					default:
-						return new DoubleValue(value.asDouble(), time);
+				listener.onValueReceived(value);
+			}
+		}
+	}
+
+	/*
+	 * Latest value of the channel, decoded from the record it holds, or set directly without a record.
+	 */
+	private static class LatestValue {
+
+		private final Record record;
+		private final Value value;
+		private final long time;
+
+		private LatestValue(Record record, Value value, long time) {
+			this.record = record;
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	/*
+	 * Records to be delivered in order to all listeners that are not conflating, by a single dispatched task.
+	 * If the stripe is overloaded, the records wait in a bounded ring, dropping the oldest when it is full.
+	 */
+	private class OrderedDispatch implements ContentExecutor.DroppableTask {
+
+		private Record[] records = new Record[DISPATCH_RECORDS_MIN];
+		private int head = 0;
+		private int size = 0;
+
+		private boolean dispatched = false;
+
+		/*
+		 * Returns true, if no delivery is running and one needs to be dispatched.
+		 */
+		private synchronized boolean offer(Record record) {
+			if (size == records.length) {
+				if (records.length < DISPATCH_RECORDS_MAX) {
+					Record[] resized = new Record[records.length*2];
+					for (int i = 0; i < size; i++) {
+						resized[i] = records[(head + i) % records.length];
 					}
+					records = resized;
+					head = 0;
+				}
+				else {
+					records[head] = null;
+					head = (head + 1) % records.length;
+					size--;
+					dispatchDroppedCount.incrementAndGet();
+				}
+			}
+			records[(head + size) % records.length] = record;
+			size++;
+			if (dispatched) {
+				return false;
+			}
+			dispatched = true;
+			return true;
+		}
+
+		/*
+		 * Returns the oldest record, or null and resets the dispatch if there is none.
+		 */
+		private synchronized Record poll() {
+			if (size == 0) {
+				dispatched = false;
+				return null;
+			}
+			Record record = records[head];
+			records[head] = null;
+			head = (head + 1) % records.length;
+			size--;
+			return record;
+		}
+
+		/*
+		 * Resets the dispatch and returns true, if all records were delivered.
+		 */
+		private synchronized boolean release() {
+			if (size > 0) {
+				return false;
+			}
+			dispatched = false;
+			return true;
+		}
+
+		@Override
+		public void run() {
+			// Deliveries are split into batches, to not keep other channels of the stripe waiting
+			for (int i = 0; i < DISPATCH_BATCH_MAX; i++) {
+				Record record = poll();
+				if (record == null) {
+					return;
 				}
-				catch (ClassCastException e) {
+				long start = System.nanoTime();
+				try {
+					notifyListeners(record, codec);
+					
+				} catch (RuntimeException e) {
+					logger.warn("Error notifying listeners of channel \"{}\": {}", getId(), e.getMessage());
 				}
+				dispatchLatency.record(System.nanoTime() - start);
+			}
+			if (!release()) {
+				listenerExecutor.execute(this);
+			}
+		}
+
+		@Override
+		public synchronized void onDropped() {
+			// Records are kept, to be delivered by the task dispatched with the next record
+			dispatched = false;
+		}
+	}
+
+	/*
+	 * Holds the latest record of a conflating listener, until it was delivered by this very task.
+	 */
+	private class ListenerMailbox implements ContentExecutor.DroppableTask {
+
+		private final ValueListener listener;
+		private final ValueFilter filter;
+		private final boolean conflating;
+		private final AtomicReference<Record> record = new AtomicReference<Record>();
+
+		private ListenerMailbox(ValueListener listener, ValueFilter filter) {
+			this.listener = listener;
+			this.filter = filter;
+			this.conflating = listener.isConflating();
+		}
+
+		private boolean accept(Record record) {
+			return filter == null || ChannelWrapper.acceptRecord(record, filter);
+		}
+
+		/*
+		 * Returns true, if the mailbox was empty and a delivery needs to be dispatched.
+		 */
+		private boolean offer(Record record) {
+			return this.record.getAndSet(record) == null;
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			deliver(codec);
+			dispatchLatency.record(System.nanoTime() - start);
+		}
+
+		@Override
+		public void onDropped() {
+			// Empty the mailbox, so the next record will dispatch a delivery again
+			record.set(null);
+		}
+
+		private void deliver(RecordCodec codec) {
+			Record record = this.record.getAndSet(null);
+			if (record == null || !accept(record)) {
+				return;
+			}
+			if (listener instanceof PrimitiveValueListener) {
+				ChannelWrapper.dispatchRecord(record, codec, (PrimitiveValueListener) listener);
+			}
+			else {
+				Value value = ChannelWrapper.decodeRecord(record, codec);
+				if (value != null) {
+					listener.onValueReceived(value);
+				}
+			}
+		}
+	}
+
+	static boolean acceptRecord(Record record, ValueFilter filter) {
+		try {
+			return filter.accept(record.getTimestamp(), record.getValue().asDouble());
+			
+		} catch (TypeConversionException | NumberFormatException e) {
+			// Non-numeric values can not be filtered and are always passed on
+			return true;
+		}
+	}
+
+	static void dispatchRecord(Record record, RecordCodec codec, PrimitiveValueListener listener) {
+		try {
+			codec.dispatch(listener, record.getValue(), record.getTimestamp());
+			
+		} catch (TypeConversionException | NumberFormatException e) {
+			logger.debug("Unable to dispatch record value \"{}\": {}", record.getValue(), e.getMessage());
+		}
+	}
+
+	public static void dispatchRecord(Record record, org.openmuc.framework.data.ValueType type,
+			PrimitiveValueListener listener) {
+		dispatchRecord(record, RecordCodec.forType(type), listener);
+	}
+
+	static Value decodeRecord(Record record, RecordCodec codec) {
+		if (record.getFlag() == Flag.VALID && record.getValue() != null) {
+			try {
+				return codec.decode(record.getValue(), record.getTimestamp());
+				
+			} catch (TypeConversionException | NumberFormatException e) {
+				logger.debug("Unable to decode record value \"{}\": {}", record.getValue(), e.getMessage());
 			}
 		}
 		return null;
 	}
 
-	public static org.openmuc.framework.data.Record encodeRecord(Value value) {
-		org.openmuc.framework.data.Value recordValue = ChannelWrapper.encodeValue(value);
-		return new org.openmuc.framework.data.Record(recordValue, value.getTime(), Flag.VALID);
+	public static Value decodeRecord(Record record, org.openmuc.framework.data.ValueType type) {
+		return decodeRecord(record, RecordCodec.forType(type));
+	}
+
+	public static Record encodeRecord(Value value) {
+		return new Record(encodeValue(value), value.getTime(), Flag.VALID);
 	}
 
 	public static List<org.openmuc.framework.data.FutureValue> encodeFutureValueList(ValueList values) {
-		List<org.openmuc.framework.data.FutureValue> futures = new LinkedList<>();
+		List<org.openmuc.framework.data.FutureValue> futures = new ArrayList<>(values.size());
 		for (Value value : values) {
-			org.openmuc.framework.data.FutureValue future = encodeFutureValue(value);
-			if (future != null) {
-				futures.add(future);
-			}
+			futures.add(encodeFutureValue(value));
 		}
 		return futures;
 	}
 
 	public static org.openmuc.framework.data.FutureValue encodeFutureValue(Value value) {
-		org.openmuc.framework.data.Value future = encodeValue(value);
-		if (future != null) {
-			return new org.openmuc.framework.data.FutureValue(future, value.getTime());
-		}
-		return null;
+		return new org.openmuc.framework.data.FutureValue(encodeValue(value), value.getTime());
 	}
 
+	/*
+	 * Encodes the value by its own type, leaving any conversion to the type of the channel to the driver.
+	 */
 	public static org.openmuc.framework.data.Value encodeValue(Value value) {
-		if (value != null) {
-			try {
-				switch(value.getType()) {
-				case BOOLEAN:
-					return new org.openmuc.framework.data.BooleanValue(value.booleanValue());
-				case BYTE:
-					return new org.openmuc.framework.data.ByteValue(value.byteValue());
-				case SHORT:
-					return new org.openmuc.framework.data.ShortValue(value.shortValue());
-				case INTEGER:
-					return new org.openmuc.framework.data.IntValue(value.intValue());
-				case LONG:
-					return new org.openmuc.framework.data.LongValue(value.longValue());
-				case FLOAT:
-					return new org.openmuc.framework.data.FloatValue(value.floatValue());
-				default:
-					return new org.openmuc.framework.data.DoubleValue(value.doubleValue());
-				}
-			}
-			catch (ClassCastException e) {
-				return null;
-			}
+		if (value == null) {
+			return null;
+		}
+		try {
+			return RecordCodec.forType(value.getType()).encode(value);
+			
+		} catch (ClassCastException e) {
+			return null;
 		}
-		return null;
 	}
 
 	@Override
@@ -0,0 +1,219 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import org.the.ems.core.data.Value;
+
+/**
+ * Pending writes of a channel, waiting to be drained by a single dispatched task.
+ * <p>
+ * Values that were not yet sent collapse into the latest one. A drain only needs to be dispatched,
+ * if none is running already, as it will keep polling until no values are left. Future values are
+ * held by the {@link TimerWheel} until they are due.
+ * <p>
+ * Every value to be written increments the write sequence of the channel. Writers check the sequence
+ * of their value before passing it to the driver, so a value that was superseded while being written
+ * does not overwrite the newer value.
+ */
+class ChannelWrites {
+
+	private Value value = null;
+	private WriteFuture future = null;
+	private Value latestValue = null;
+
+	private Value polledValue = null;
+	private WriteFuture polledFuture = null;
+	private Value polledLatestValue = null;
+
+	private long sequence = 0;
+	private long polledSequence = 0;
+
+	private boolean dispatched = false;
+
+	private long count = 0;
+	private long coalescedCount = 0;
+
+	/**
+	 * Offers a value to be written and returns true, if a drain needs to be dispatched.
+	 */
+	synchronized boolean offer(Value value) {
+		return offer(value, null);
+	}
+
+	/**
+	 * Offers a value to be written and returns true, if a drain needs to be dispatched. The future will be
+	 * completed when the value was written, or superseded by a newer value.
+	 */
+	synchronized boolean offer(Value value, WriteFuture future) {
+		if (this.value != null) {
+			coalescedCount++;
+			if (this.future != null) {
+				this.future.supersede();
+			}
+		}
+		this.value = value;
+		this.future = future;
+		sequence++;
+		count++;
+		return dispatch();
+	}
+
+	/**
+	 * Discards the pending value to be written, as it was superseded by a newer value written directly,
+	 * and returns the write sequence of the new value. The passed number of older values that were 
+	 * never offered are counted as coalesced as well.
+	 */
+	synchronized long supersede(int coalesced) {
+		count += coalesced;
+		coalescedCount += coalesced;
+		return supersede();
+	}
+
+	/**
+	 * Discards the pending value to be written, as it was superseded by a newer value written directly,
+	 * and returns the write sequence of the new value.
+	 */
+	synchronized long supersede() {
+		if (value != null) {
+			value = null;
+			coalescedCount++;
+			if (future != null) {
+				future.supersede();
+				future = null;
+			}
+		}
+		count++;
+		return ++sequence;
+	}
+
+	/**
+	 * Returns true, if no value was offered to be written after the value of the passed write sequence.
+	 */
+	synchronized boolean isLatest(long sequence) {
+		return this.sequence == sequence;
+	}
+
+	/**
+	 * Offers a latest value to be set and returns true, if a drain needs to be dispatched.
+	 */
+	synchronized boolean offerLatest(Value value) {
+		if (latestValue != null) {
+			coalescedCount++;
+		}
+		latestValue = value;
+		count++;
+		return dispatch();
+	}
+
+	/**
+	 * Discards all pending values and resets the dispatch, as the drain task was cancelled before it was run.
+	 * The future of a pending value is cancelled. Returns the number of discarded values.
+	 */
+	synchronized int cancel() {
+		int cancelled = 0;
+		if (value != null) {
+			if (future != null) {
+				future.discard();
+			}
+			value = null;
+			future = null;
+			cancelled++;
+		}
+		if (latestValue != null) {
+			latestValue = null;
+			cancelled++;
+		}
+		dispatched = false;
+		return cancelled;
+	}
+
+	/**
+	 * Resets the dispatch, if the drain task was aborted unexpectedly. The future of a polled value, that 
+	 * was not yet written, is failed. Values still pending will be drained by the next dispatched task.
+	 */
+	synchronized void release() {
+		if (polledFuture != null) {
+			polledFuture.drop();
+		}
+		polledValue = null;
+		polledFuture = null;
+		polledLatestValue = null;
+		dispatched = false;
+	}
+
+	private boolean dispatch() {
+		if (dispatched) {
+			return false;
+		}
+		dispatched = true;
+		return true;
+	}
+
+	/**
+	 * Takes all pending values to be drained, or returns false and resets the dispatch if there are none.
+	 * The polled values may only be accessed by the single draining task.
+	 */
+	synchronized boolean poll() {
+		if (value == null && latestValue == null) {
+			dispatched = false;
+			return false;
+		}
+		polledValue = value;
+		polledFuture = future;
+		polledSequence = sequence;
+		polledLatestValue = latestValue;
+		
+		value = null;
+		future = null;
+		latestValue = null;
+		return true;
+	}
+
+	Value getPolledValue() {
+		return polledValue;
+	}
+
+	long getPolledSequence() {
+		return polledSequence;
+	}
+
+	WriteFuture getPolledFuture() {
+		return polledFuture;
+	}
+
+	Value getPolledLatestValue() {
+		return polledLatestValue;
+	}
+
+	/**
+	 * Returns the number of all values offered to be written.
+	 */
+	synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of values that were replaced before being written.
+	 */
+	synchronized long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+}
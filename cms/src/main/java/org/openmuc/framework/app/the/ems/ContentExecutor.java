@@ -0,0 +1,266 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded thread pool of the content management system.
+ * <p>
+ * Tasks are queued in a bounded queue and handled by an {@link OverloadPolicy} if it is full, 
+ * so a stalled device can neither create an unbounded number of threads nor exhaust the memory.
+ * Only {@link DroppableTask}s will ever be dropped while the pool is running, other tasks are run 
+ * by the caller, if no droppable task can make room for them.
+ * <p>
+ * Tasks run by the caller may as well be run by the thread of the {@link TimerWheel}, as it dispatches 
+ * the writes of expired values. With a full queue, a driver write run by the timer thread will delay
+ * the following timers for as long as the driver takes to acknowledge it.
+ */
+class ContentExecutor extends ThreadPoolExecutor {
+	private final static Logger logger = LoggerFactory.getLogger(ContentExecutor.class);
+
+	public enum OverloadPolicy {
+		CALLER_RUNS,
+		DROP_OLDEST,
+		BLOCK;
+	}
+
+	/**
+	 * Task that may never be dropped, but needs to be notified if it was rejected as the executor was shut down.
+	 */
+	interface CancellableTask extends Runnable {
+		public void onCancelled();
+	}
+
+	/**
+	 * Task that needs to be notified, if it was dropped without being run.
+	 */
+	interface DroppableTask extends CancellableTask {
+		public void onDropped();
+
+		/*
+		 * Notified instead of onDropped(), if the task was rejected as the executor was shut down.
+		 */
+		@Override
+		public default void onCancelled() {
+			onDropped();
+		}
+	}
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong completedCount = new AtomicLong();
+	private final AtomicLong latencySum = new AtomicLong();
+	private final AtomicLong latencyMax = new AtomicLong();
+
+	ContentExecutor(int poolSize, int queueSize, OverloadPolicy policy, long timeout, ThreadFactory factory) {
+		super(poolSize, poolSize, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), factory);
+		allowCoreThreadTimeOut(true);
+		setRejectedExecutionHandler(new OverloadHandler(policy, timeout));
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		super.execute(new TimedTask(task));
+	}
+
+	@Override
+	protected void afterExecute(Runnable task, Throwable t) {
+		super.afterExecute(task, t);
+		if (task instanceof TimedTask) {
+			onCompleted((TimedTask) task);
+		}
+		if (t != null) {
+			logger.warn("Unexpected error while executing task: {}", t.getMessage());
+		}
+	}
+
+	private void onCompleted(TimedTask task) {
+		long latency = System.nanoTime() - task.time;
+		completedCount.incrementAndGet();
+		latencySum.addAndGet(latency);
+		latencyMax.accumulateAndGet(latency, Math::max);
+	}
+
+	public int getQueueSize() {
+		return getQueue().size();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/*
+	 * Returns the mean time in milliseconds from submitting a task until it was completed.
+	 */
+	public double getLatencyMean() {
+		long count = completedCount.get();
+		if (count == 0) {
+			return 0;
+		}
+		return latencySum.get()/(double) count/1000000.0;
+	}
+
+	/*
+	 * Returns the maximum time in milliseconds from submitting a task until it was completed.
+	 */
+	public double getLatencyMax() {
+		return latencyMax.get()/1000000.0;
+	}
+
+	private void drop(Runnable task) {
+		rejectedCount.incrementAndGet();
+		if (task instanceof TimedTask) {
+			task = ((TimedTask) task).task;
+		}
+		if (task instanceof DroppableTask) {
+			((DroppableTask) task).onDropped();
+		}
+	}
+
+	private void cancel(Runnable task) {
+		rejectedCount.incrementAndGet();
+		if (task instanceof TimedTask) {
+			task = ((TimedTask) task).task;
+		}
+		if (task instanceof CancellableTask) {
+			((CancellableTask) task).onCancelled();
+		}
+	}
+
+	private static boolean isDroppable(Runnable task) {
+		if (task instanceof TimedTask) {
+			task = ((TimedTask) task).task;
+		}
+		return task instanceof DroppableTask;
+	}
+
+	/*
+	 * Runs the task in the calling thread, timed like tasks run by the pool.
+	 */
+	private void runCaller(Runnable task) {
+		try {
+			task.run();
+			
+		} finally {
+			if (task instanceof TimedTask) {
+				onCompleted((TimedTask) task);
+			}
+		}
+	}
+
+	/*
+	 * Removes the oldest queued task, that may be dropped, and returns it or null if there is none.
+	 */
+	private Runnable pollDroppable(BlockingQueue<Runnable> queue) {
+		Iterator<Runnable> tasks = queue.iterator();
+		while (tasks.hasNext()) {
+			Runnable task = tasks.next();
+			if (isDroppable(task) && queue.remove(task)) {
+				return task;
+			}
+		}
+		return null;
+	}
+
+	private static class TimedTask implements Runnable {
+
+		private final Runnable task;
+		private final long time = System.nanoTime();
+
+		private TimedTask(Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			task.run();
+		}
+	}
+
+	private class OverloadHandler implements RejectedExecutionHandler {
+
+		private final OverloadPolicy policy;
+		private final long timeout;
+
+		private OverloadHandler(OverloadPolicy policy, long timeout) {
+			this.policy = policy;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				cancel(task);
+				return;
+			}
+			BlockingQueue<Runnable> queue = executor.getQueue();
+			switch(policy) {
+			case CALLER_RUNS:
+				runCaller(task);
+				break;
+			case DROP_OLDEST:
+				Runnable oldest = pollDroppable(queue);
+				if (oldest != null) {
+					drop(oldest);
+					if (queue.offer(task)) {
+						break;
+					}
+				}
+				reject(task);
+				break;
+			case BLOCK:
+				try {
+					if (queue.offer(task, timeout, TimeUnit.MILLISECONDS)) {
+						break;
+					}
+					logger.warn("Full queue did not accept task after waiting {}ms", timeout);
+					
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				reject(task);
+				break;
+			}
+		}
+
+		/*
+		 * Drops a task that may be dropped, or runs it in the calling thread otherwise.
+		 */
+		private void reject(Runnable task) {
+			if (isDroppable(task)) {
+				drop(task);
+			}
+			else {
+				runCaller(task);
+			}
+		}
+	}
+
+}
@@ -19,13 +19,36 @@
  */
 package org.openmuc.framework.app.the.ems;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
+import org.apache.felix.service.command.CommandProcessor;
+import org.apache.felix.service.command.Descriptor;
 import org.openmuc.framework.app.the.ems.ChannelWrapper.ChannelCallbacks;
+import org.openmuc.framework.app.the.ems.TimerWheel.TimerCallbacks;
+import org.openmuc.framework.config.ConfigChangeListener;
+import org.openmuc.framework.config.ConfigService;
+import org.openmuc.framework.data.Flag;
+import org.openmuc.framework.dataaccess.ChannelChangeListener;
 import org.openmuc.framework.dataaccess.DataAccessService;
+import org.openmuc.framework.dataaccess.ReadRecordContainer;
+import org.openmuc.framework.dataaccess.WriteValueContainer;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -35,65 +58,411 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.the.ems.core.ContentManagementService;
 import org.the.ems.core.data.Channel;
+import org.the.ems.core.data.ChannelHandle;
+import org.the.ems.core.data.ChannelStatistics;
 import org.the.ems.core.data.UnknownChannelException;
 import org.the.ems.core.data.Value;
 import org.the.ems.core.data.ValueList;
 import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.data.WriteContainer;
 import org.the.ems.core.schedule.NamedThreadFactory;
 
 @Component(
 	immediate = true,
-	service = ContentManagementService.class
+	service = ContentManagementService.class,
+	property = {
+		CommandProcessor.COMMAND_SCOPE + ":String=th-e-cms",
+		CommandProcessor.COMMAND_FUNCTION + ":String=statistics"
+	}
 )
-public class ContentManager implements ContentManagementService, ChannelCallbacks {
+public class ContentManager implements ContentManagementService, ChannelCallbacks, TimerCallbacks, 
+		ChannelChangeListener, ConfigChangeListener {
 	private final static Logger logger = LoggerFactory.getLogger(ContentManager.class);
 
-	private final Map<String, ChannelWrapper> channels = new HashMap<String, ChannelWrapper>();
+	private final static int HISTORY_SIZE_DEFAULT = 0;
+	private final static int HISTORY_SIZE = Integer.getInteger("org.the.ems.cms.history.size", HISTORY_SIZE_DEFAULT);
+
+	private final static long LATEST_VALUE_AGE_MAX_DEFAULT = 1000;
+	private final static long LATEST_VALUE_AGE_MAX = Long.getLong("org.the.ems.cms.latest.age.max", LATEST_VALUE_AGE_MAX_DEFAULT);
+
+	private final static long TIMER_TICK_DEFAULT = 1;
+	private final static long TIMER_TICK = Long.getLong("org.the.ems.cms.timer.tick", TIMER_TICK_DEFAULT);
+
+	private final static int POOL_SIZE_DEFAULT = 8;
+	private final static int POOL_SIZE = Integer.getInteger("org.the.ems.cms.pool.size", POOL_SIZE_DEFAULT);
+
+	private final static int QUEUE_SIZE_DEFAULT = 1000;
+	private final static int QUEUE_SIZE = Integer.getInteger("org.the.ems.cms.queue.size", QUEUE_SIZE_DEFAULT);
+
+	private final static String OVERLOAD_POLICY_DEFAULT = "CALLER_RUNS";
+	private final static String OVERLOAD_POLICY = System.getProperty("org.the.ems.cms.overload.policy", OVERLOAD_POLICY_DEFAULT);
+
+	private final static long OVERLOAD_TIMEOUT_DEFAULT = 1000;
+	private final static long OVERLOAD_TIMEOUT = Long.getLong("org.the.ems.cms.overload.timeout", OVERLOAD_TIMEOUT_DEFAULT);
+
+	private final static String JOURNAL_CHANNELS_DEFAULT = "";
+	private final static String JOURNAL_CHANNELS = System.getProperty("org.the.ems.cms.journal.channels", JOURNAL_CHANNELS_DEFAULT);
+
+	private final static String JOURNAL_DIR_DEFAULT = "data" + File.separator + "journal";
+	private final static String JOURNAL_DIR = System.getProperty("org.the.ems.cms.journal.dir", JOURNAL_DIR_DEFAULT);
+
+	private final static int JOURNAL_SIZE_DEFAULT = 1048576;
+	private final static int JOURNAL_SIZE = Integer.getInteger("org.the.ems.cms.journal.size", JOURNAL_SIZE_DEFAULT);
+
+	private final static long JOURNAL_CHECKPOINT_DEFAULT = 60000;
+	private final static long JOURNAL_CHECKPOINT = Long.getLong("org.the.ems.cms.journal.checkpoint", JOURNAL_CHECKPOINT_DEFAULT);
+
+	private final static long IDS_REFRESH_DEFAULT = 10000;
+	private final static long IDS_REFRESH = Long.getLong("org.the.ems.cms.ids.refresh", IDS_REFRESH_DEFAULT);
 
-	private ExecutorService executor = null;
+	private final Map<String, ChannelWrapper> channels = new ConcurrentHashMap<String, ChannelWrapper>();
+
+	// Snapshot of all known ids, replaced as a whole while holding the lock, so lookups never see a partial refresh
+	private final Object idsLock = new Object();
+	private volatile Set<String> ids = Collections.emptySet();
+	private final AtomicLong idsRefreshTime = new AtomicLong();
+
+	private final ChannelPatterns patterns = new ChannelPatterns();
+
+	// Handles are only added while holding the lock of the map, the slots array is replaced when it grows
+	private final Map<String, IndexedHandle> handles = new HashMap<String, IndexedHandle>();
+	private volatile IndexedHandle[] handleSlots = new IndexedHandle[16];
+	private int handleCount = 0;
+
+	private final static int DISPATCH_STRIPES_DEFAULT = Runtime.getRuntime().availableProcessors();
+	private final static int DISPATCH_STRIPES = Integer.getInteger("org.the.ems.cms.dispatch.stripes", DISPATCH_STRIPES_DEFAULT);
+
+	private final static int DISPATCH_QUEUE_SIZE_DEFAULT = 10000;
+	private final static int DISPATCH_QUEUE_SIZE = Integer.getInteger("org.the.ems.cms.dispatch.queue.size", DISPATCH_QUEUE_SIZE_DEFAULT);
+
+	private ContentExecutor executor = null;
+
+	private ListenerDispatcher dispatcher = null;
+
+	private TimerWheel timers = null;
+
+	private ValueJournal journal = null;
+	private final WriteContainer timerContainer = new WriteContainer();
 
 	@Reference
 	private DataAccessService access;
 
+	@Reference
+	private ConfigService configs;
+
+	public ContentManager() {
+	}
+
+	/*
+	 * Creates the manager with the passed services, instead of the references bound by the framework.
+	 */
+	ContentManager(DataAccessService access, ConfigService configs) {
+		this.access = access;
+		this.configs = configs;
+	}
+
 	@Activate
 	protected void activate(ComponentContext context) {
 		logger.info("Activating TH-E Content Management System");
 		
 		NamedThreadFactory namedThreadFactory = new NamedThreadFactory("TH-E CMS Pool - thread-");
-		executor = Executors.newCachedThreadPool(namedThreadFactory);
+		ContentExecutor.OverloadPolicy policy;
+		try {
+			policy = ContentExecutor.OverloadPolicy.valueOf(OVERLOAD_POLICY.trim().toUpperCase());
+			
+		} catch (IllegalArgumentException e) {
+			logger.warn("Unknown overload policy \"{}\", using default {}", OVERLOAD_POLICY, OVERLOAD_POLICY_DEFAULT);
+			policy = ContentExecutor.OverloadPolicy.valueOf(OVERLOAD_POLICY_DEFAULT);
+		}
+		executor = new ContentExecutor(POOL_SIZE, QUEUE_SIZE, policy, OVERLOAD_TIMEOUT, namedThreadFactory);
+		dispatcher = new ListenerDispatcher(DISPATCH_STRIPES, DISPATCH_QUEUE_SIZE, 
+				new NamedThreadFactory("TH-E CMS Dispatcher - thread-"));
+		timers = new TimerWheel(this, TIMER_TICK);
+		timers.start("TH-E CMS Timer");
+		
+		// Channels added or removed later are indexed when the configuration changed
+		configs.getConfig(this);
+		refreshIds();
+		
+		if (!JOURNAL_CHANNELS.trim().isEmpty()) {
+			activateJournal();
+		}
+	}
+
+	private void activateJournal() {
+		ValueJournal journal = new ValueJournal(new File(JOURNAL_DIR), JOURNAL_SIZE, JOURNAL_CHECKPOINT, JOURNAL_CHANNELS);
+		Map<String, Value> values;
+		try {
+			values = journal.open();
+			
+		} catch (IOException e) {
+			logger.warn("Error opening journal \"{}\": {}", JOURNAL_DIR, e.getMessage());
+			return;
+		}
+		journal.start("TH-E CMS Journal");
+		this.journal = journal;
+		
+		// Restore the latest values before any component accesses the channels
+		for (String id : ids) {
+			if (!journal.isSelected(id)) {
+				continue;
+			}
+			try {
+				ChannelWrapper channel = (ChannelWrapper) getChannel(id);
+				Value value = values.get(id);
+				if (value != null) {
+					channel.restoreLatestValue(value);
+				}
+			} catch (UnknownChannelException e) {
+				logger.debug("Unable to journal channel \"{}\": {}", id, e.getMessage());
+			}
+		}
 	}
 
 	@Deactivate
 	protected void deactivate(ComponentContext context) {
 		logger.info("Deactivating TH-E Content Management System");
+		configs.stopListeningForConfigChange(this);
+		
+		logger.debug("Shutting down CMS pool with {} queued tasks, {} rejected and mean latency of {}ms", 
+				executor.getQueueSize(), executor.getRejectedCount(), executor.getLatencyMean());
+		timers.shutdown();
 		
+		// Records must not be delivered by driver threads anymore, once the dispatcher was shut down
+		for (ChannelWrapper channel : channels.values()) {
+			channel.close();
+		}
 		executor.shutdown();
+		dispatcher.shutdown();
+		if (journal != null) {
+			journal.shutdown();
+		}
 	}
 
 	@Override
 	public Channel getChannel(String id) throws UnknownChannelException {
-		if (!channels.containsKey(id)) {
-			if (!access.getAllIds().contains(id)) {
+		ChannelWrapper channel = channels.get(id);
+		if (channel == null) {
+			if (!containsId(id)) {
 				throw new UnknownChannelException("Unknown channel for id: " + id);
 			}
-			ChannelWrapper channel = new ChannelWrapper(this, access.getChannel(id));
-			channels.put(id, channel);
-			
-			return channel;
+			channel = channels.computeIfAbsent(id, i -> {
+				org.openmuc.framework.dataaccess.Channel c = access.getChannel(i, this);
+				if (c == null) {
+					return null;
+				}
+				ChannelWrapper wrapper = new ChannelWrapper(this, c, getHistorySize(i), LATEST_VALUE_AGE_MAX);
+				if (journal != null && journal.isSelected(i)) {
+					wrapper.setJournal(journal);
+				}
+				return wrapper;
+			});
+			if (channel == null) {
+				throw new UnknownChannelException("Unknown channel for id: " + id);
+			}
+		}
+		return channel;
+	}
+
+	/*
+	 * Returns the history size of the channel, configured with the channel id appended to the global property.
+	 */
+	private static int getHistorySize(String id) {
+		return Integer.getInteger("org.the.ems.cms.history.size." + id, HISTORY_SIZE);
+	}
+
+	/*
+	 * Checks the snapshot of known ids first. On a miss, the index is refreshed at most once per
+	 * refresh interval, in case a notification about an added channel was missed.
+	 */
+	private boolean containsId(String id) {
+		if (ids.contains(id)) {
+			return true;
+		}
+		long time = System.currentTimeMillis();
+		long refreshTime = idsRefreshTime.get();
+		if (time - refreshTime >= IDS_REFRESH && idsRefreshTime.compareAndSet(refreshTime, time)) {
+			logger.debug("Refreshing channel index after lookup of unknown channel \"{}\"", id);
+			refreshIds();
+			return ids.contains(id);
 		}
-		return channels.get(id);
+		return false;
+	}
+
+	@Override
+	public void configurationChanged() {
+		logger.debug("Refreshing channel index after configuration change");
+		refreshIds();
+	}
+
+	private void refreshIds() {
+		Set<String> ids = Collections.unmodifiableSet(new HashSet<String>(access.getAllIds()));
+		List<String> added = new ArrayList<String>();
+		synchronized (idsLock) {
+			for (String id : ids) {
+				if (!this.ids.contains(id)) {
+					added.add(id);
+				}
+			}
+			this.ids = ids;
+		}
+		idsRefreshTime.set(System.currentTimeMillis());
+		for (String id : added) {
+			onChannelAdded(id);
+		}
+	}
+
+	private boolean addId(String id) {
+		synchronized (idsLock) {
+			if (ids.contains(id)) {
+				return false;
+			}
+			Set<String> ids = new HashSet<String>(this.ids);
+			ids.add(id);
+			this.ids = Collections.unmodifiableSet(ids);
+			return true;
+		}
+	}
+
+	private void removeId(String id) {
+		synchronized (idsLock) {
+			if (!ids.contains(id)) {
+				return;
+			}
+			Set<String> ids = new HashSet<String>(this.ids);
+			ids.remove(id);
+			this.ids = Collections.unmodifiableSet(ids);
+		}
+	}
+
+	private void onChannelAdded(String id) {
+		for (ChannelPatterns.Subscription subscription : patterns.match(id)) {
+			logger.debug("Attaching listener of pattern \"{}\" to new channel \"{}\"", subscription.getPattern(), id);
+			try {
+				getChannel(id).registerValueListener(subscription.getListener());
+				
+			} catch (UnknownChannelException e) {
+				logger.debug("Unable to attach listener to channel \"{}\": {}", id, e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void channelModified(org.openmuc.framework.dataaccess.Channel channel) {
+		String id = channel.getId();
+		if (addId(id)) {
+			onChannelAdded(id);
+		}
+		ChannelWrapper wrapper = channels.get(id);
+		if (wrapper != null) {
+			logger.debug("Updating modified channel \"{}\"", id);
+			wrapper.setChannel(channel);
+		}
+	}
+
+	@Override
+	public void channelDeleted(org.openmuc.framework.dataaccess.Channel channel) {
+		String id = channel.getId();
+		removeId(id);
+		
+		ChannelWrapper wrapper = channels.remove(id);
+		if (wrapper != null) {
+			logger.debug("Removing deleted channel \"{}\"", id);
+			timers.cancel(wrapper);
+		}
+		synchronized (handles) {
+			IndexedHandle handle = handles.remove(id);
+			if (handle != null) {
+				IndexedHandle[] slots = handleSlots;
+				slots[handle.getIndex()] = null;
+				handleSlots = slots;
+			}
+		}
+	}
+
+	@Override
+	public ChannelHandle getChannelHandle(String id) throws UnknownChannelException {
+		synchronized (handles) {
+			IndexedHandle handle = handles.get(id);
+			if (handle == null) {
+				ChannelWrapper channel = (ChannelWrapper) getChannel(id);
+				IndexedHandle[] slots = handleSlots;
+				if (handleCount == slots.length) {
+					slots = Arrays.copyOf(slots, slots.length*2);
+				}
+				handle = new IndexedHandle(handleCount++, channel);
+				slots[handle.getIndex()] = handle;
+				handles.put(id, handle);
+				handleSlots = slots;
+			}
+			return handle;
+		}
+	}
+
+	@Override
+	public Channel getChannel(ChannelHandle handle) throws UnknownChannelException {
+		// Only the very handle issued for the slot is accepted, handles of deleted channels are resolved by their id
+		IndexedHandle[] slots = handleSlots;
+		int index = handle.getIndex();
+		if (index >= 0 && index < slots.length && slots[index] == handle) {
+			return ((IndexedHandle) handle).channel;
+		}
+		return getChannel(handle.getId());
 	}
 
 	@Override
 	public void registerValueListener(String id, ValueListener listener) throws UnknownChannelException {
+		if (ChannelPatterns.isPattern(id)) {
+			registerPatternListener(id, listener);
+			return;
+		}
 		getChannel(id).registerValueListener(listener);
 	}
 
+	private void registerPatternListener(String pattern, ValueListener listener) throws UnknownChannelException {
+		ChannelPatterns.Subscription subscription = patterns.add(pattern, listener);
+		
+		// Channels added from now on will be attached by the change notification or the refresh of the index
+		int count = 0;
+		for (String id : ids) {
+			if (subscription.matches(id)) {
+				getChannel(id).registerValueListener(listener);
+				count++;
+			}
+		}
+		logger.debug("Registered listener of pattern \"{}\" for {} channels", pattern, count);
+	}
+
 	@Override
 	public void deregisterValueListener(String id, ValueListener listener) throws UnknownChannelException {
+		if (ChannelPatterns.isPattern(id)) {
+			deregisterPatternListener(id, listener);
+			return;
+		}
 		getChannel(id).deregisterValueListener(listener);
 	}
 
+	private void deregisterPatternListener(String pattern, ValueListener listener) {
+		ChannelPatterns.Subscription subscription = patterns.remove(pattern, listener);
+		if (subscription == null) {
+			return;
+		}
+		for (ChannelWrapper channel : channels.values()) {
+			if (subscription.matches(channel.getId()) && !isSubscribed(channel.getId(), listener)) {
+				channel.deregisterValueListener(listener);
+			}
+		}
+	}
+
+	private boolean isSubscribed(String id, ValueListener listener) {
+		for (ChannelPatterns.Subscription subscription : patterns.match(id)) {
+			if (subscription.getListener().equals(listener)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public Value getLatestValue(String id, ValueListener listener) throws UnknownChannelException {
 		return getChannel(id).getLatestValue(listener);
@@ -104,6 +473,43 @@ public class ContentManager implements ContentManagementService, ChannelCallback
 		return getChannel(id).getLatestValue();
 	}
 
+	@Override
+	public Map<String, Value> getLatestValues(Collection<String> ids, boolean read) throws UnknownChannelException {
+		Map<String, Value> values = new LinkedHashMap<String, Value>();
+		if (!read) {
+			for (String id : ids) {
+				values.put(id, getChannel(id).getLatestValue());
+			}
+			return Collections.unmodifiableMap(values);
+		}
+		// Read containers are grouped by device, to be served by as few bus transactions as possible
+		Map<String, List<ChannelWrapper>> devices = new LinkedHashMap<String, List<ChannelWrapper>>();
+		for (String id : ids) {
+			ChannelWrapper channel = (ChannelWrapper) getChannel(id);
+			devices.computeIfAbsent(channel.getDeviceId(), d -> new ArrayList<ChannelWrapper>()).add(channel);
+		}
+		List<ChannelWrapper> channels = new ArrayList<ChannelWrapper>(ids.size());
+		List<ReadRecordContainer> containers = new ArrayList<ReadRecordContainer>(ids.size());
+		for (List<ChannelWrapper> device : devices.values()) {
+			for (ChannelWrapper channel : device) {
+				channels.add(channel);
+				containers.add(channel.getReadContainer());
+			}
+		}
+		logger.debug("Reading {} channels of {} devices", containers.size(), devices.size());
+		access.read(containers);
+		
+		Map<String, Value> records = new HashMap<String, Value>();
+		for (int i = 0; i < channels.size(); i++) {
+			ChannelWrapper channel = channels.get(i);
+			records.put(channel.getId(), channel.onRecordRead(containers.get(i).getRecord()));
+		}
+		for (String id : ids) {
+			values.put(id, records.get(id));
+		}
+		return Collections.unmodifiableMap(values);
+	}
+
 	@Override
 	public void setLatestValue(String id, Value value) throws UnknownChannelException {
 		logger.debug("Set latest value for channel \"{}\": {}", id, value);
@@ -122,9 +528,236 @@ public class ContentManager implements ContentManagementService, ChannelCallback
 		getChannel(id).write(values);
 	}
 
+	@Override
+	public void write(WriteContainer container) throws UnknownChannelException {
+		long time = System.currentTimeMillis();
+		
+		// Values due are grouped by driver and device, to allow drivers to combine them in one frame
+		Map<String, List<ChannelWrapper.BatchWrite>> devices = new LinkedHashMap<String, List<ChannelWrapper.BatchWrite>>();
+		for (int i = 0; i < container.size(); i++) {
+			ChannelWrapper channel;
+			try {
+				channel = getWrapper(container.getChannel(i));
+				
+			} catch (UnknownChannelException e) {
+				// A single removed channel must not keep the remaining values of the batch from being written
+				logger.warn("Skipping values of unknown channel \"{}\" in batch", container.getChannel(i).getId());
+				continue;
+			}
+			// Values are read from the primitive arrays of the container, only future values need objects.
+			// Of several values already due, the latest one supersedes the others, like pending values do
+			int value = -1;
+			int coalesced = 0;
+			ValueList futureValues = null;
+			for (int v = container.getFirstValueIndex(i); v >= 0; v = container.getNextValueIndex(v)) {
+				long t = container.getTime(v);
+				if (t > time) {
+					if (futureValues == null) {
+						futureValues = new ValueList();
+					}
+					futureValues.add(container.getValue(v));
+				}
+				else {
+					if (value >= 0) {
+						coalesced++;
+					}
+					if (value < 0 || t >= container.getTime(value)) {
+						value = v;
+					}
+				}
+			}
+			if (value >= 0) {
+				String device = channel.getDriverId() + ":" + channel.getDeviceId();
+				devices.computeIfAbsent(device, d -> new ArrayList<ChannelWrapper.BatchWrite>())
+						.add(channel.getWriteContainer(container, value, coalesced));
+			}
+			if (futureValues != null) {
+				channel.write(futureValues);
+			}
+		}
+		for (Entry<String, List<ChannelWrapper.BatchWrite>> device : devices.entrySet()) {
+			doExecute(new DeviceWrite(device.getKey(), device.getValue()));
+		}
+	}
+
+	/*
+	 * Returns the wrapper held by a batch directly, only channels added by their id are looked up.
+	 */
+	private ChannelWrapper getWrapper(Channel channel) throws UnknownChannelException {
+		if (channel instanceof ChannelWrapper) {
+			return (ChannelWrapper) channel;
+		}
+		return (ChannelWrapper) getChannel(channel.getId());
+	}
+
+	@Override
+	public Map<String, ChannelStatistics> getStatistics() {
+		Map<String, ChannelStatistics> statistics = new LinkedHashMap<String, ChannelStatistics>();
+		for (ChannelWrapper channel : channels.values()) {
+			statistics.put(channel.getId(), channel.getStatistics());
+		}
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	@Descriptor("Show the throughput and latency metrics of all channels, slowest writes first")
+	public String statistics() {
+		return statistics("*");
+	}
+
+	@Descriptor("Show the throughput and latency metrics of channels matching the pattern, slowest writes first")
+	public String statistics(@Descriptor("the channel id pattern, with the wildcards ? and *") String pattern) {
+		Pattern regex = ChannelPatterns.compile(pattern);
+		List<ChannelStatistics> statistics = new ArrayList<ChannelStatistics>();
+		for (ChannelStatistics s : getStatistics().values()) {
+			if (regex.matcher(s.getId()).matches()) {
+				statistics.add(s);
+			}
+		}
+		statistics.sort(Comparator.comparingDouble((ChannelStatistics s) -> s.getWriteLatency().getMax())
+				.thenComparingDouble(s -> s.getDispatchLatency().getMax()).reversed());
+		
+		// The command returns the table instead of printing it, to be rendered by the shell session
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("Pool: %d active, %d queued, %d rejected, latency mean %.3fms, max %.3fms%n", 
+				executor.getActiveCount(), executor.getQueueSize(), executor.getRejectedCount(), 
+				executor.getLatencyMean(), executor.getLatencyMax()));
+		long dispatchDropped = 0;
+		for (ChannelWrapper channel : channels.values()) {
+			dispatchDropped += channel.getDispatchDroppedCount();
+		}
+		table.append(String.format("Dispatcher: %d queued, %d dropped, %d records dropped%n", 
+				dispatcher.getQueueSize(), dispatcher.getDroppedCount(), dispatchDropped));
+		table.append(String.format("%-32s %10s %8s %10s %10s %10s %8s %8s %10s %10s", "Channel", 
+				"Records", "Invalid", "Disp p99", "Disp max", "Writes", "Coalesc", "Failed", "Write p99", "Write max"));
+		for (ChannelStatistics s : statistics) {
+			table.append(String.format("%n%-32s %10d %8d %10.3f %10.3f %10d %8d %8d %10.3f %10.3f", s.getId(), 
+					s.getRecordCount(), s.getRecordInvalidCount(), 
+					s.getDispatchLatency().getPercentile99(), s.getDispatchLatency().getMax(),
+					s.getWriteCount(), s.getWriteCoalescedCount(), s.getWriteFailedCount(),
+					s.getWriteLatency().getPercentile99(), s.getWriteLatency().getMax()));
+		}
+		return table.toString();
+	}
+
 	@Override
 	public void doExecute(Runnable task) {
 		executor.execute(task);
 	}
 
+	@Override
+	public void doSchedule(ChannelWrapper channel, Value value) {
+		timers.schedule(channel, value);
+	}
+
+	@Override
+	public void doSchedule(ChannelWrapper channel, Value value, WriteFuture future) {
+		timers.schedule(channel, value, future);
+	}
+
+	@Override
+	public void doSchedule(ChannelWrapper channel, ValueList values) {
+		timers.schedule(channel, values);
+	}
+
+	@Override
+	public void onTimersExpired(List<TimerWheel.Entry> entries) {
+		logger.debug("Writing {} expired future values", entries.size());
+		try {
+			for (TimerWheel.Entry entry : entries) {
+				if (entry.getFuture() != null) {
+					// Values written asynchronously are drained by their channel, to acknowledge them
+					entry.getChannel().write(entry.getValue(), entry.getFuture());
+					continue;
+				}
+				timerContainer.add(entry.getChannel(), entry.getValue());
+			}
+			write(timerContainer);
+			
+		} catch (UnknownChannelException e) {
+			logger.warn("Error writing expired future values: {}", e.getMessage());
+			
+		} finally {
+			timerContainer.reset();
+		}
+	}
+
+	@Override
+	public Executor getListenerExecutor(String id) {
+		return dispatcher.getExecutor(id);
+	}
+
+	/*
+	 * Batch of values to be written to the channels of one device. If the driver fails or the batch is 
+	 * dropped by the executor, each value still to be written is counted as failed write of its channel.
+	 */
+	private final class DeviceWrite implements ContentExecutor.DroppableTask {
+
+		private final String device;
+		private final List<ChannelWrapper.BatchWrite> writes;
+
+		private DeviceWrite(String device, List<ChannelWrapper.BatchWrite> writes) {
+			this.device = device;
+			this.writes = writes;
+		}
+
+		@Override
+		public void run() {
+			// Values superseded by a newer write while this batch was queued must not overwrite it
+			writes.removeIf(w -> !w.isLatest());
+			if (writes.isEmpty()) {
+				return;
+			}
+			List<WriteValueContainer> containers = new ArrayList<WriteValueContainer>(writes.size());
+			for (ChannelWrapper.BatchWrite w : writes) {
+				containers.add(w.container);
+			}
+			long start = System.nanoTime();
+			try {
+				access.write(containers);
+				
+			} catch (RuntimeException e) {
+				logger.warn("Failed writing {} values for device \"{}\": {}", writes.size(), device, e.getMessage());
+				onFailed(System.nanoTime() - start);
+				return;
+			}
+			long latency = System.nanoTime() - start;
+			for (ChannelWrapper.BatchWrite w : writes) {
+				WriteValueContainer c = w.container;
+				w.getChannel().onWritten(c.getFlag(), latency);
+				if (c.getFlag() != Flag.VALID) {
+					logger.warn("Failed writing value for channel \"{}\": {}", c.getChannel().getId(), c.getFlag());
+				}
+			}
+		}
+
+		@Override
+		public void onDropped() {
+			writes.removeIf(w -> !w.isLatest());
+			if (writes.isEmpty()) {
+				return;
+			}
+			logger.warn("Dropped writing {} values for device \"{}\"", writes.size(), device);
+			onFailed(0);
+		}
+
+		private void onFailed(long latency) {
+			for (ChannelWrapper.BatchWrite w : writes) {
+				w.getChannel().onWritten(null, latency);
+			}
+		}
+	}
+
+	/*
+	 * Handle of a channel, holding the wrapper it was issued for at its slot.
+	 */
+	private static final class IndexedHandle extends ChannelHandle {
+
+		private final ChannelWrapper channel;
+
+		private IndexedHandle(int index, ChannelWrapper channel) {
+			super(index, channel.getId());
+			this.channel = channel;
+		}
+	}
+
 }
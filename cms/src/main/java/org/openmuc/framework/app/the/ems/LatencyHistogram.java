@@ -0,0 +1,81 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.the.ems.core.data.ChannelStatistics;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with buckets for each power of two.
+ */
+class LatencyHistogram {
+
+	private final static int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(BUCKETS - 1 - Long.numberOfLeadingZeros(nanos | 1));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		max.accumulateAndGet(nanos, Math::max);
+	}
+
+	ChannelStatistics.Latency snapshot() {
+		long count = this.count.get();
+		if (count == 0) {
+			return ChannelStatistics.Latency.EMPTY;
+		}
+		long[] buckets = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = this.buckets.get(i);
+			total += buckets[i];
+		}
+		long max = this.max.get();
+		return new ChannelStatistics.Latency(count, sum.get()/(double) count/1000000.0, max/1000000.0,
+				percentile(buckets, total, max, 0.5), 
+				percentile(buckets, total, max, 0.9), 
+				percentile(buckets, total, max, 0.99));
+	}
+
+	private static double percentile(long[] buckets, long total, long max, double quantile) {
+		long rank = (long) Math.ceil(total*quantile);
+		long cumulated = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulated += buckets[i];
+			if (cumulated >= rank) {
+				long bound = i < BUCKETS - 1 ? (1L << (i + 1)) - 1 : Long.MAX_VALUE;
+				return Math.min(bound, max)/1000000.0;
+			}
+		}
+		return max/1000000.0;
+	}
+
+}
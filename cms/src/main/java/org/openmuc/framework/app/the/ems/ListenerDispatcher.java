@@ -0,0 +1,94 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed set of single threaded executors, notifying the value listeners of channels.
+ * <p>
+ * Each channel is assigned to a stripe by the hash of its id, so its records are always delivered
+ * in order, while a slow listener only delays the channels sharing its stripe. If the queue of a
+ * stripe is full, the task is dropped and counted immediately, as the delivering driver thread must 
+ * never be blocked. Channels dispatch a single task for all pending records of a listener, so a dropped 
+ * task only conflates records: ordered records stay buffered by their channel, and conflating mailboxes
+ * are filled again by the next record. Tasks delivered after the dispatcher was shut down are dropped 
+ * silently.
+ */
+class ListenerDispatcher {
+	private final static Logger logger = LoggerFactory.getLogger(ListenerDispatcher.class);
+
+	private final ThreadPoolExecutor[] stripes;
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	ListenerDispatcher(int stripes, int queueSize, ThreadFactory factory) {
+		this.stripes = new ThreadPoolExecutor[Math.max(stripes, 1)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, 
+					new ArrayBlockingQueue<Runnable>(queueSize), factory);
+			
+			executor.setRejectedExecutionHandler((task, e) -> {
+				if (!e.isShutdown() && droppedCount.getAndIncrement() == 0) {
+					logger.warn("Dropping listener notifications, as the dispatcher queue is full");
+				}
+				drop(task);
+			});
+			this.stripes[i] = executor;
+		}
+	}
+
+	Executor getExecutor(String id) {
+		return stripes[(id.hashCode() & Integer.MAX_VALUE) % stripes.length];
+	}
+
+	private static void drop(Runnable task) {
+		if (task instanceof ContentExecutor.DroppableTask) {
+			((ContentExecutor.DroppableTask) task).onDropped();
+		}
+	}
+
+	long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	int getQueueSize() {
+		int size = 0;
+		for (ThreadPoolExecutor stripe : stripes) {
+			size += stripe.getQueue().size();
+		}
+		return size;
+	}
+
+	void shutdown() {
+		for (ThreadPoolExecutor stripe : stripes) {
+			stripe.shutdown();
+		}
+	}
+
+}
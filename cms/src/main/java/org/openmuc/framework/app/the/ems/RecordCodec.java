@@ -0,0 +1,241 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import org.the.ems.core.data.BooleanValue;
+import org.the.ems.core.data.ByteValue;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.FloatValue;
+import org.the.ems.core.data.IntValue;
+import org.the.ems.core.data.LongValue;
+import org.the.ems.core.data.PrimitiveValueListener;
+import org.the.ems.core.data.ShortValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueType;
+import org.the.ems.core.data.WriteContainer;
+
+/**
+ * Conversion between OpenMUC record values and TH-E values of a specific type.
+ * <p>
+ * A codec is resolved once for the value type of a channel, so decoding records does not need to 
+ * evaluate the type again for every value. Values to be written are encoded with the codec of their 
+ * own type instead, as a double value written to an integer channel must not be truncated before it 
+ * reaches the driver.
+ */
+enum RecordCodec {
+
+	DOUBLE {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new DoubleValue(value.asDouble(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onDouble(time, value.asDouble());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.DoubleValue(value.doubleValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.DoubleValue(container.getDouble(index));
+		}
+	},
+	FLOAT {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new FloatValue(value.asFloat(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onFloat(time, value.asFloat());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.FloatValue(value.floatValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.FloatValue((float) container.getDouble(index));
+		}
+	},
+	LONG {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new LongValue(value.asLong(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onLong(time, value.asLong());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.LongValue(value.longValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.LongValue(container.getLong(index));
+		}
+	},
+	INTEGER {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new IntValue(value.asInt(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onInteger(time, value.asInt());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.IntValue(value.intValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.IntValue((int) container.getLong(index));
+		}
+	},
+	SHORT {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new ShortValue(value.asShort(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onShort(time, value.asShort());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.ShortValue(value.shortValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.ShortValue((short) container.getLong(index));
+		}
+	},
+	BYTE {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new ByteValue(value.asByte(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onByte(time, value.asByte());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.ByteValue(value.byteValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.ByteValue((byte) container.getLong(index));
+		}
+	},
+	BOOLEAN {
+		@Override
+		Value decode(org.openmuc.framework.data.Value value, long time) {
+			return new BooleanValue(value.asBoolean(), time);
+		}
+
+		@Override
+		void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time) {
+			listener.onBoolean(time, value.asBoolean());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(Value value) {
+			return new org.openmuc.framework.data.BooleanValue(value.booleanValue());
+		}
+
+		@Override
+		org.openmuc.framework.data.Value encode(WriteContainer container, int index) {
+			return new org.openmuc.framework.data.BooleanValue(container.getBoolean(index));
+		}
+	};
+
+	abstract Value decode(org.openmuc.framework.data.Value value, long time);
+
+	abstract void dispatch(PrimitiveValueListener listener, org.openmuc.framework.data.Value value, long time);
+
+	abstract org.openmuc.framework.data.Value encode(Value value);
+
+	/**
+	 * Encodes the value at the value index of the container, without creating an intermediate value object.
+	 */
+	abstract org.openmuc.framework.data.Value encode(WriteContainer container, int index);
+
+	static RecordCodec forType(org.openmuc.framework.data.ValueType type) {
+		switch(type) {
+		case BOOLEAN:
+			return BOOLEAN;
+		case BYTE:
+			return BYTE;
+		case SHORT:
+			return SHORT;
+		case INTEGER:
+			return INTEGER;
+		case LONG:
+			return LONG;
+		case FLOAT:
+			return FLOAT;
+		default:
+			return DOUBLE;
+		}
+	}
+
+	static RecordCodec forType(ValueType type) {
+		switch(type) {
+		case BOOLEAN:
+			return BOOLEAN;
+		case BYTE:
+			return BYTE;
+		case SHORT:
+			return SHORT;
+		case INTEGER:
+			return INTEGER;
+		case LONG:
+			return LONG;
+		case FLOAT:
+			return FLOAT;
+		default:
+			return DOUBLE;
+		}
+	}
+
+}
@@ -0,0 +1,394 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+
+/**
+ * Hierarchical timer wheel, holding the future values to be written for all channels.
+ * <p>
+ * The first level holds 256 slots of a single tick, each further level 64 slots covering a whole
+ * revolution of the level below. Entries are kept in doubly linked slot lists, so they can be
+ * cancelled in constant time, and are moved down a level whenever the level below completed a
+ * revolution. All entries expiring in a tick are passed on together as one batch.
+ */
+class TimerWheel implements Runnable {
+	private final static Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+	/**
+	 * Interface used to notify the {@link ContentManager} 
+	 * implementation about expired timers
+	 */
+	public interface TimerCallbacks {
+		public void onTimersExpired(List<Entry> entries);
+	}
+
+	private final static int LEVELS = 5;
+	private final static int LEVEL_BITS = 6;
+	private final static int LEVEL_SIZE = 1 << LEVEL_BITS;
+	private final static int FIRST_BITS = 8;
+	private final static int FIRST_SIZE = 1 << FIRST_BITS;
+
+	private final static long RANGE_MAX = (1L << (FIRST_BITS + (LEVELS - 1)*LEVEL_BITS)) - 1;
+
+	private final TimerCallbacks callbacks;
+
+	private final long tick;
+	private final Entry[][] slots;
+
+	/**
+	 * The next tick to be processed.
+	 */
+	private long current;
+	private int size = 0;
+
+	private volatile boolean running = false;
+	private Thread thread = null;
+
+	TimerWheel(TimerCallbacks callbacks, long tick) {
+		this.callbacks = callbacks;
+		this.tick = Math.max(tick, 1);
+		this.slots = new Entry[LEVELS][];
+		this.slots[0] = new Entry[FIRST_SIZE];
+		for (int level = 1; level < LEVELS; level++) {
+			slots[level] = new Entry[LEVEL_SIZE];
+		}
+		this.current = System.currentTimeMillis()/this.tick;
+	}
+
+	synchronized void start(String name) {
+		running = true;
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void shutdown() {
+		Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = this.thread;
+			this.thread = null;
+			if (size > 0) {
+				logger.debug("Discarding {} pending future values", size);
+				for (Entry[] level : slots) {
+					for (Entry entry : level) {
+						for (; entry != null; entry = entry.next) {
+							if (entry.future != null) {
+								entry.future.discard();
+							}
+						}
+					}
+				}
+			}
+		}
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Schedules the value to be written to the channel, replacing a pending value with the same timestamp.
+	 */
+	synchronized void schedule(ChannelWrapper channel, Value value) {
+		schedule(channel, value, null);
+	}
+
+	/**
+	 * Schedules the value to be written to the channel, completing the future when it was written.
+	 */
+	synchronized void schedule(ChannelWrapper channel, Value value, WriteFuture future) {
+		resume();
+		ArrayDeque<Entry> timers = channel.getTimers();
+		Iterator<Entry> iterator = timers.descendingIterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.value.getTime() < value.getTime()) {
+				break;
+			}
+			if (entry.value.getTime() == value.getTime()) {
+				iterator.remove();
+				unlink(entry);
+				entry.supersede();
+			}
+		}
+		Entry entry = new Entry(channel, value, future, ticks(value.getTime()));
+		if (timers.isEmpty() || timers.peekLast().value.getTime() <= value.getTime()) {
+			timers.addLast(entry);
+		}
+		else {
+			// Keep the pending values of the channel in order of their timestamps
+			List<Entry> later = new ArrayList<Entry>();
+			while (!timers.isEmpty() && timers.peekLast().value.getTime() > value.getTime()) {
+				later.add(timers.pollLast());
+			}
+			timers.addLast(entry);
+			for (int i = later.size() - 1; i >= 0; i--) {
+				timers.addLast(later.get(i));
+			}
+		}
+		insert(entry);
+		notifyAll();
+	}
+
+	/**
+	 * Schedules the values to be written to the channel, superseding all pending values from the 
+	 * timestamp of the first value on.
+	 */
+	synchronized void schedule(ChannelWrapper channel, ValueList values) {
+		if (values.isEmpty()) {
+			return;
+		}
+		resume();
+		ArrayDeque<Entry> timers = channel.getTimers();
+		long start = values.peekFirst().getTime();
+		while (!timers.isEmpty() && timers.peekLast().value.getTime() >= start) {
+			Entry entry = timers.pollLast();
+			unlink(entry);
+			entry.supersede();
+		}
+		for (Value value : values) {
+			Entry entry = new Entry(channel, value, null, ticks(value.getTime()));
+			timers.addLast(entry);
+			insert(entry);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Cancels all pending values of the channel.
+	 */
+	synchronized void cancel(ChannelWrapper channel) {
+		ArrayDeque<Entry> timers = channel.getTimers();
+		while (!timers.isEmpty()) {
+			Entry entry = timers.pollFirst();
+			unlink(entry);
+			if (entry.future != null) {
+				entry.future.discard();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		List<Entry> expired = new ArrayList<Entry>();
+		while (running) {
+			try {
+				synchronized (this) {
+					long time = System.currentTimeMillis();
+					advance(time/tick, expired);
+					if (expired.isEmpty()) {
+						wait(delay(time));
+						continue;
+					}
+				}
+				callbacks.onTimersExpired(expired);
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+				
+			} catch (Exception e) {
+				logger.warn("Error writing expired future values: {}", e.getMessage());
+			}
+			expired.clear();
+		}
+	}
+
+	/**
+	 * Returns the milliseconds to wait until the next occupied tick of the first level, 
+	 * or the next revolution of the first level.
+	 */
+	private long delay(long time) {
+		if (size == 0) {
+			return 0;
+		}
+		long next = (current | (FIRST_SIZE - 1)) + 1;
+		for (long t = current; t < next; t++) {
+			if (slots[0][(int) (t & (FIRST_SIZE - 1))] != null) {
+				next = t;
+				break;
+			}
+		}
+		return Math.max(next*tick - time, 1);
+	}
+
+	/**
+	 * Skips all ticks that passed while the wheel was empty.
+	 */
+	private void resume() {
+		if (size == 0) {
+			current = Math.max(current, System.currentTimeMillis()/tick);
+		}
+	}
+
+	/**
+	 * Expires all entries up to and including the passed tick, in order of their timestamps per channel.
+	 */
+	void advance(long ticks, List<Entry> expired) {
+		while (current <= ticks) {
+			if (size == 0) {
+				current = ticks + 1;
+				break;
+			}
+			int index = (int) (current & (FIRST_SIZE - 1));
+			if (index == 0) {
+				for (int level = 1; level < LEVELS; level++) {
+					int i = (int) ((current >> shift(level)) & (LEVEL_SIZE - 1));
+					cascade(level, i);
+					if (i != 0) {
+						break;
+					}
+				}
+			}
+			Entry entry = slots[0][index];
+			slots[0][index] = null;
+			while (entry != null) {
+				Entry next = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				entry.level = -1;
+				
+				// Pending values of a channel are ordered by their timestamps, so all values expiring 
+				// in this tick are at the head of its timers, while their order in the slot is arbitrary
+				expired.add(entry.channel.getTimers().pollFirst());
+				size--;
+				entry = next;
+			}
+			current++;
+		}
+	}
+
+	private void cascade(int level, int index) {
+		Entry entry = slots[level][index];
+		slots[level][index] = null;
+		while (entry != null) {
+			Entry next = entry.next;
+			entry.prev = null;
+			entry.next = null;
+			entry.level = -1;
+			size--;
+			insert(entry);
+			entry = next;
+		}
+	}
+
+	private void insert(Entry entry) {
+		long ticks = Math.max(entry.ticks, current);
+		long delta = Math.min(ticks - current, RANGE_MAX);
+		ticks = current + delta;
+		
+		int level = 0;
+		int index = (int) (ticks & (FIRST_SIZE - 1));
+		if (delta >= FIRST_SIZE) {
+			level = 1;
+			while (level < LEVELS - 1 && delta >= 1L << shift(level + 1)) {
+				level++;
+			}
+			index = (int) ((ticks >> shift(level)) & (LEVEL_SIZE - 1));
+		}
+		entry.level = level;
+		entry.index = index;
+		entry.next = slots[level][index];
+		if (entry.next != null) {
+			entry.next.prev = entry;
+		}
+		slots[level][index] = entry;
+		size++;
+	}
+
+	private void unlink(Entry entry) {
+		if (entry.level < 0) {
+			return;
+		}
+		if (entry.prev != null) {
+			entry.prev.next = entry.next;
+		}
+		else {
+			slots[entry.level][entry.index] = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+		entry.level = -1;
+		size--;
+	}
+
+	private long ticks(long time) {
+		return (time + tick - 1)/tick;
+	}
+
+	private static int shift(int level) {
+		return FIRST_BITS + (level - 1)*LEVEL_BITS;
+	}
+
+	static class Entry {
+
+		private final ChannelWrapper channel;
+		private final Value value;
+		private final WriteFuture future;
+		private final long ticks;
+
+		private Entry prev = null;
+		private Entry next = null;
+		private int level = -1;
+		private int index = 0;
+
+		private Entry(ChannelWrapper channel, Value value, WriteFuture future, long ticks) {
+			this.channel = channel;
+			this.value = value;
+			this.future = future;
+			this.ticks = ticks;
+		}
+
+		private void supersede() {
+			if (future != null) {
+				future.supersede();
+			}
+		}
+
+		ChannelWrapper getChannel() {
+			return channel;
+		}
+
+		Value getValue() {
+			return value;
+		}
+
+		WriteFuture getFuture() {
+			return future;
+		}
+	}
+
+}
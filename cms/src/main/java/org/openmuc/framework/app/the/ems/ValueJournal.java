@@ -0,0 +1,429 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.openmuc.framework.data.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueCodec;
+
+/**
+ * Append-only journal of the latest values of selected channels, kept in two memory-mapped segments.
+ * <p>
+ * Records of each channel are passed on through a {@link Slot}, holding only the latest record until the
+ * journal thread takes it, so journaling does not allocate any objects on the threads delivering records.
+ * Values are appended sequentially by a single thread, each as a record of its length, a CRC32 checksum 
+ * and the channel id followed by the value encoded by the {@link ValueCodec}. The checksum covers the 
+ * generation of the segment as well, so records left over from a former use of a segment are never replayed.
+ * Periodically, or when a segment is full, a checkpoint writes the latest values of all channels to the 
+ * other segment, which continues the journal with the next generation. At startup, the segment with the 
+ * latest valid generation is replayed until its first invalid record.
+ * <p>
+ * If the latest values of all channels do not fit into a segment, the checkpoint is discarded and the
+ * journal disabled, leaving the former segment to be replayed with the values journaled until then.
+ */
+class ValueJournal implements Runnable {
+	private final static Logger logger = LoggerFactory.getLogger(ValueJournal.class);
+
+	private final static int MAGIC = 0x54484A4C;
+	private final static int VERSION = 1;
+
+	private final static int HEADER_SIZE = 4 + 4 + 8;
+	private final static int RECORD_HEADER_SIZE = 4 + 4;
+	private final static int ID_SIZE_MAX = 0xFFFF;
+
+	private final static int QUEUE_SIZE = 10000;
+
+	private final File directory;
+	private final int segmentSize;
+	private final long checkpointInterval;
+	private final Pattern[] channels;
+
+	private final MappedByteBuffer[] segments = new MappedByteBuffer[2];
+	private int segment = 0;
+	private long generation = 0;
+
+	private final ByteBuffer buffer;
+	private final byte[] bytes;
+	private final CRC32 crc = new CRC32();
+
+	// Latest values of all journaled channels, only accessed by the journal thread after opening
+	private final Map<String, Value> values = new HashMap<String, Value>();
+	private long checkpointTime;
+	private boolean appended = false;
+
+	private final BlockingQueue<Slot> queue = new ArrayBlockingQueue<Slot>(QUEUE_SIZE);
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private volatile boolean disabled = false;
+	private volatile boolean running = false;
+	private Thread thread = null;
+
+	ValueJournal(File directory, int segmentSize, long checkpointInterval, String channels) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.checkpointInterval = checkpointInterval;
+		String[] patterns = channels.split(",");
+		this.channels = new Pattern[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			this.channels[i] = ChannelPatterns.compile(patterns[i].trim());
+		}
+		this.buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + 2 + ID_SIZE_MAX + ValueCodec.VALUE_SIZE_MAX);
+		this.bytes = new byte[buffer.capacity()];
+	}
+
+	/**
+	 * Returns true, if values of the channel are journaled. Channels with an id too long to be encoded
+	 * in a record are never journaled.
+	 */
+	boolean isSelected(String id) {
+		if (id.length() > ID_SIZE_MAX/3 && id.getBytes(StandardCharsets.UTF_8).length > ID_SIZE_MAX) {
+			logger.warn("Unable to journal values of channel with too long id: {}", id);
+			return false;
+		}
+		for (Pattern pattern : channels) {
+			if (pattern.matcher(id).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Maps the segments and replays the latest values of all journaled channels.
+	 */
+	synchronized Map<String, Value> open() throws IOException {
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Unable to create journal directory: " + directory);
+		}
+		for (int i = 0; i < segments.length; i++) {
+			try (RandomAccessFile file = new RandomAccessFile(new File(directory, "segment." + i), "rw");
+					FileChannel channel = file.getChannel()) {
+				segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+			}
+		}
+		long[] generations = new long[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			MappedByteBuffer segment = segments[i];
+			if (segment.getInt(0) == MAGIC && segment.getInt(4) == VERSION) {
+				generations[i] = segment.getLong(8);
+			}
+		}
+		// Fall back to the former generation, if the checkpoint of the latest one is incomplete
+		int latest = generations[0] >= generations[1] ? 0 : 1;
+		int[] order = new int[] { latest, 1 - latest };
+		for (int i : order) {
+			if (generations[i] > 0 && replay(i, generations[i])) {
+				segment = i;
+				generation = generations[i];
+				break;
+			}
+			values.clear();
+		}
+		if (generation == 0 && !checkpoint()) {
+			throw new IOException("Journal segment size of " + segmentSize + " bytes is too small");
+		}
+		checkpointTime = System.currentTimeMillis();
+		
+		logger.info("Replayed {} values of journal generation {}", values.size(), generation);
+		return Collections.unmodifiableMap(new LinkedHashMap<String, Value>(values));
+	}
+
+	private boolean replay(int index, long generation) {
+		ByteBuffer segment = segments[index].duplicate();
+		segment.position(HEADER_SIZE);
+		int count = 0;
+		while (segment.remaining() >= RECORD_HEADER_SIZE) {
+			int position = segment.position();
+			int length = segment.getInt();
+			int checksum = segment.getInt();
+			if (length <= 0 || length > segment.remaining() || length > bytes.length) {
+				segment.position(position);
+				break;
+			}
+			ByteBuffer record = segment.slice();
+			record.limit(length);
+			if (checksum != checksum(generation, record)) {
+				logger.debug("Stopping replay of journal segment {} at invalid record at {}", index, position);
+				segment.position(position);
+				break;
+			}
+			try {
+				byte[] id = new byte[record.getShort() & 0xFFFF];
+				record.get(id);
+				if (record.hasRemaining()) {
+					values.put(new String(id, StandardCharsets.UTF_8), ValueCodec.decodeValue(record));
+				}
+				
+			} catch (RuntimeException e) {
+				logger.debug("Stopping replay of journal segment {} at undecodable record at {}", index, position);
+				segment.position(position);
+				break;
+			}
+			segment.position(position + RECORD_HEADER_SIZE + length);
+			count++;
+		}
+		if (count == 0) {
+			// A segment is only valid, if at least the first record of its checkpoint is intact
+			return false;
+		}
+		segments[index].position(segment.position());
+		return true;
+	}
+
+	synchronized void start(String name) {
+		running = true;
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void shutdown() {
+		Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = this.thread;
+			this.thread = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(1000);
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (MappedByteBuffer segment : segments) {
+			if (segment != null) {
+				segment.force();
+			}
+		}
+		if (droppedCount.get() > 0) {
+			logger.debug("Dropped {} values while the journal queue was full", droppedCount.get());
+		}
+	}
+
+	/**
+	 * Returns the slot to pass on the records of the channel to be journaled.
+	 */
+	Slot newSlot(String id) {
+		return new Slot(id);
+	}
+
+	/**
+	 * Offers the record to be journaled, decoded only by the journal thread. A record still pending
+	 * in the slot of the channel is replaced, as only the latest value will be replayed.
+	 */
+	void append(Slot slot, Record record, RecordCodec codec) {
+		if (disabled) {
+			return;
+		}
+		slot.codec = codec;
+		if (slot.record.getAndSet(record) == null && !queue.offer(slot)) {
+			slot.record.compareAndSet(record, null);
+			droppedCount.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				Slot slot = queue.poll(Math.max(checkpointInterval, 1), TimeUnit.MILLISECONDS);
+				if (slot != null) {
+					write(slot);
+				}
+				if (appended && System.currentTimeMillis() - checkpointTime >= checkpointInterval) {
+					checkpoint();
+				}
+			} catch (InterruptedException e) {
+				break;
+				
+			} catch (Exception e) {
+				logger.warn("Error journaling channel value: {}", e.getMessage());
+			}
+		}
+		// Write values still pending, which will be replayed with the next start
+		drain();
+	}
+
+	/**
+	 * Writes all values pending to be journaled.
+	 */
+	void drain() {
+		Slot slot;
+		while ((slot = queue.poll()) != null) {
+			write(slot);
+		}
+	}
+
+	private void write(Slot slot) {
+		Record record = slot.record.getAndSet(null);
+		if (record == null) {
+			return;
+		}
+		Value value = ChannelWrapper.decodeRecord(record, slot.codec);
+		if (value != null) {
+			write(slot.id, value);
+		}
+	}
+
+	private synchronized void write(String id, Value value) {
+		if (disabled) {
+			return;
+		}
+		values.put(id, value);
+		if (!append(segments[segment], id, value)) {
+			// The checkpoint contains the value already
+			checkpoint();
+			return;
+		}
+		appended = true;
+	}
+
+	/**
+	 * Returns true, if the journal was disabled, as the latest values did not fit into a segment.
+	 */
+	boolean isDisabled() {
+		return disabled;
+	}
+
+	/**
+	 * Writes the latest values of all channels to the other segment and continues the journal there.
+	 * Returns false and disables the journal, if the values do not fit into the segment.
+	 */
+	synchronized boolean checkpoint() {
+		if (disabled) {
+			return false;
+		}
+		int index = 1 - segment;
+		MappedByteBuffer next = segments[index];
+		long generation = this.generation + 1;
+		
+		// Invalidate the header first, as the former contents of the segment will be overwritten
+		next.putLong(8, 0);
+		next.position(HEADER_SIZE);
+		this.generation = generation;
+		boolean complete = true;
+		for (Map.Entry<String, Value> value : values.entrySet()) {
+			if (!append(next, value.getKey(), value.getValue())) {
+				complete = false;
+				break;
+			}
+		}
+		if (values.isEmpty()) {
+			// Keep an empty checkpoint valid, by journaling a record without any channel
+			complete = append(next, "", null);
+		}
+		if (!complete) {
+			// Leave the header invalidated, so the former segment will still be replayed
+			next.force();
+			this.generation = generation - 1;
+			disabled = true;
+			appended = false;
+			queue.clear();
+			
+			logger.error("Disabling journal, as the segment size of {} bytes is too small for the latest values of {} channels", 
+					segmentSize, values.size());
+			return false;
+		}
+		next.putInt(0, MAGIC);
+		next.putInt(4, VERSION);
+		next.putLong(8, generation);
+		next.force();
+		
+		segment = index;
+		checkpointTime = System.currentTimeMillis();
+		appended = false;
+		return true;
+	}
+
+	private boolean append(MappedByteBuffer segment, String id, Value value) {
+		buffer.clear();
+		buffer.position(RECORD_HEADER_SIZE);
+		
+		// The buffer holds the longest id and value, as channels with longer ids are never selected
+		byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		if (value != null) {
+			ValueCodec.encodeValue(buffer, value);
+		}
+		int length = buffer.position() - RECORD_HEADER_SIZE;
+		buffer.flip();
+		buffer.position(RECORD_HEADER_SIZE);
+		int checksum = checksum(generation, buffer.slice());
+		buffer.putInt(0, length);
+		buffer.putInt(4, checksum);
+		buffer.position(0);
+		
+		// Keep space for the terminating length of the journal
+		if (segment.remaining() < buffer.remaining() + 4) {
+			return false;
+		}
+		segment.put(buffer);
+		segment.putInt(segment.position(), 0);
+		return true;
+	}
+
+	private int checksum(long generation, ByteBuffer record) {
+		crc.reset();
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (generation >>> shift));
+		}
+		int length = record.remaining();
+		record.duplicate().get(bytes, 0, length);
+		crc.update(bytes, 0, length);
+		return (int) crc.getValue();
+	}
+
+	static class Slot {
+
+		private final String id;
+		private final AtomicReference<Record> record = new AtomicReference<Record>();
+		private volatile RecordCodec codec;
+
+		private Slot(String id) {
+			this.id = id;
+		}
+	}
+
+}
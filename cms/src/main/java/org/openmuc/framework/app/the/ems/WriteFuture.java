@@ -0,0 +1,70 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.openmuc.framework.data.Flag;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.WriteResult;
+
+/**
+ * Future of a value written asynchronously, measuring the latency from its creation until completion.
+ */
+class WriteFuture extends CompletableFuture<WriteResult> {
+
+	private final String id;
+	private final Value value;
+
+	private final long start = System.nanoTime();
+
+	WriteFuture(String id, Value value) {
+		this.id = id;
+		this.value = value;
+	}
+
+	void complete(Flag flag) {
+		complete(flag == Flag.VALID ? WriteResult.Status.SUCCESS : WriteResult.Status.FAILED, flag != null ? flag.name() : null);
+	}
+
+	void fail(Exception e) {
+		complete(WriteResult.Status.FAILED, e.getMessage());
+	}
+
+	void supersede() {
+		complete(WriteResult.Status.SUPERSEDED, null);
+	}
+
+	void discard() {
+		complete(WriteResult.Status.CANCELLED, null);
+	}
+
+	/*
+	 * Fails the write, as it was dropped before being acknowledged by the driver.
+	 */
+	void drop() {
+		complete(WriteResult.Status.FAILED, null);
+	}
+
+	private void complete(WriteResult.Status status, String flag) {
+		complete(new WriteResult(id, value, status, flag, System.nanoTime() - start));
+	}
+
+}
@@ -0,0 +1,131 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestChannelHistory {
+
+	private final static double DELTA = 1e-9;
+
+	@Test
+	public void testEmpty() {
+		ChannelHistory history = new ChannelHistory(4);
+		assertEquals(0, history.size());
+		assertTrue(Double.isNaN(history.getMinimum(4)));
+		assertTrue(Double.isNaN(history.getMaximum(4)));
+		assertTrue(Double.isNaN(history.getSum(4)));
+		assertTrue(Double.isNaN(history.getMean(4)));
+	}
+
+	@Test
+	public void testIgnored() {
+		ChannelHistory history = new ChannelHistory(4);
+		history.add(1000, 1);
+		history.add(2000, Double.NaN);
+		history.add(500, 2);
+		
+		assertEquals(1, history.size());
+		assertEquals(1, history.getSum(4), 0);
+	}
+
+	@Test
+	public void testWraparound() {
+		ChannelHistory history = new ChannelHistory(8);
+		for (int i = 0; i < 20; i++) {
+			history.add(i*1000, i);
+		}
+		assertEquals(8, history.size());
+		assertEquals(12, history.getMinimum(8), 0);
+		assertEquals(19, history.getMaximum(8), 0);
+		assertEquals(12 + 13 + 14 + 15 + 16 + 17 + 18 + 19, history.getSum(8), 0);
+		assertEquals(18.5, history.getMean(2), 0);
+		
+		// Windows larger than the capacity are limited to the held samples
+		assertEquals(history.getSum(8), history.getSum(100), 0);
+		assertEquals(3, history.countSince(17000));
+	}
+
+	@Test
+	public void testRebase() {
+		// Prefix sums are rebased every revolution, so large running totals must not lose precision
+		ChannelHistory history = new ChannelHistory(3);
+		for (int i = 0; i < 1000000; i++) {
+			history.add(i, 1e9 + (i % 7));
+		}
+		double sum = 0;
+		for (int i = 999997; i < 1000000; i++) {
+			sum += 1e9 + (i % 7);
+		}
+		assertEquals(sum, history.getSum(3), 0);
+		assertEquals(1e9 + (999999 % 7), history.getSum(1), 0);
+	}
+
+	@Test
+	public void testRandomWindows() {
+		Random random = new Random(42);
+		ChannelHistory history = new ChannelHistory(50);
+		List<Long> times = new ArrayList<Long>();
+		List<Double> values = new ArrayList<Double>();
+		long time = 0;
+		for (int i = 0; i < 2000; i++) {
+			time += random.nextInt(3)*1000;
+			double value = random.nextInt(200) - 100 + random.nextDouble();
+			history.add(time, value);
+			times.add(time);
+			values.add(value);
+			
+			int size = Math.min(values.size(), 50);
+			assertEquals(size, history.size());
+			
+			int count = 1 + random.nextInt(size);
+			List<Double> window = values.subList(values.size() - count, values.size());
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			double sum = 0;
+			for (double v : window) {
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+				sum += v;
+			}
+			assertEquals(min, history.getMinimum(count), 0);
+			assertEquals(max, history.getMaximum(count), 0);
+			assertEquals(sum, history.getSum(count), DELTA*Math.max(1, Math.abs(sum)));
+			assertEquals(sum/count, history.getMean(count), DELTA*Math.max(1, Math.abs(sum)));
+			
+			long start = time - random.nextInt(60)*1000;
+			int since = 0;
+			for (int j = times.size() - size; j < times.size(); j++) {
+				if (times.get(j) >= start) {
+					since++;
+				}
+			}
+			assertEquals(since, history.countSince(start));
+		}
+	}
+
+}
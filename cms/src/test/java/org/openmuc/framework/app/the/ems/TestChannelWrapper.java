@@ -0,0 +1,186 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.framework.data.DoubleValue;
+import org.openmuc.framework.data.Flag;
+import org.openmuc.framework.data.Record;
+import org.openmuc.framework.data.ValueType;
+import org.the.ems.core.data.PrimitiveValueListener;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+import org.the.ems.core.data.ValueListener;
+
+public class TestChannelWrapper {
+
+	private final static long TIME = 1600000000000L;
+
+	private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+	private ChannelWrapper channel;
+
+	@Before
+	public void setup() {
+		channel = newChannel("test", tasks::add);
+	}
+
+	@Test
+	public void testOrdered() {
+		List<Double> values = new ArrayList<Double>();
+		List<Long> times = new ArrayList<Long>();
+		channel.registerValueListener((PrimitiveValueListener) (time, value) -> {
+			times.add(time);
+			values.add(value);
+		});
+		for (int i = 0; i < 3; i++) {
+			newRecord(i);
+		}
+		// Records pending in order share the dispatch task of the channel
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(3, values.size());
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(i, values.get(i), 0);
+			assertEquals(TIME + i, (long) times.get(i));
+		}
+		// Once all records were delivered, the next one dispatches the task again
+		newRecord(3);
+		assertEquals(1, tasks.size());
+	}
+
+	@Test
+	public void testConflating() {
+		List<Value> values = new ArrayList<Value>();
+		channel.registerValueListener(new ValueListener() {
+			
+			@Override
+			public void onValueReceived(Value value) {
+				values.add(value);
+			}
+			
+			@Override
+			public boolean isConflating() {
+				return true;
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			newRecord(i);
+		}
+		assertEquals(1, tasks.size());
+		Runnable task = tasks.get(0);
+		runTasks();
+		assertEquals(1, values.size());
+		assertEquals(2, values.get(0).doubleValue(), 0);
+		
+		// The mailbox is dispatched again as the same task
+		newRecord(3);
+		assertSame(task, tasks.get(0));
+	}
+
+	@Test
+	public void testDropped() {
+		List<Double> values = new ArrayList<Double>();
+		channel.registerValueListener((PrimitiveValueListener) (time, value) -> values.add(value));
+		newRecord(1);
+		
+		// A dispatch dropped by the overloaded stripe keeps its records for the next dispatch
+		((ContentExecutor.DroppableTask) tasks.remove(0)).onDropped();
+		newRecord(2);
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(2, values.size());
+		assertEquals(1, values.get(0), 0);
+	}
+
+	@Test
+	public void testLatestValue() {
+		newRecord(1);
+		Value value = channel.getLatestValue();
+		assertEquals(1, value.doubleValue(), 0);
+		assertSame(value, channel.getLatestValue());
+		
+		newRecord(2);
+		assertEquals(2, channel.getLatestValue().doubleValue(), 0);
+		
+		channel.newRecord(new Record(null, TIME, Flag.DRIVER_ERROR_TIMEOUT));
+		assertNull(channel.getLatestValue());
+	}
+
+	private void newRecord(double value) {
+		channel.newRecord(new Record(new DoubleValue(value), TIME + (long) value, Flag.VALID));
+	}
+
+	private void runTasks() {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+
+	private static ChannelWrapper newChannel(String id, Executor executor) {
+		org.openmuc.framework.dataaccess.Channel channel = (org.openmuc.framework.dataaccess.Channel) Proxy.newProxyInstance(
+				TestChannelWrapper.class.getClassLoader(), new Class<?>[] { org.openmuc.framework.dataaccess.Channel.class }, 
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getId":
+						return id;
+					case "getValueType":
+						return ValueType.DOUBLE;
+					default:
+						return null;
+					}
+				});
+		return new ChannelWrapper(new ChannelWrapper.ChannelCallbacks() {
+			
+			@Override
+			public void doExecute(Runnable task) {
+				task.run();
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value, WriteFuture future) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, ValueList values) {
+			}
+			
+			@Override
+			public Executor getListenerExecutor(String id) {
+				return executor;
+			}
+		}, channel, 0, 60000);
+	}
+
+}
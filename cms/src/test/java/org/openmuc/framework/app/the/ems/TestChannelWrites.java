@@ -0,0 +1,170 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+import org.openmuc.framework.data.Flag;
+import org.openmuc.framework.data.ValueType;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+import org.the.ems.core.data.WriteResult;
+
+public class TestChannelWrites {
+
+	private final ChannelWrites writes = new ChannelWrites();
+
+	@Test
+	public void testCoalesce() {
+		WriteFuture first = new WriteFuture("test", new DoubleValue(1));
+		WriteFuture second = new WriteFuture("test", new DoubleValue(2));
+		assertTrue(writes.offer(new DoubleValue(1), first));
+		assertFalse(writes.offer(new DoubleValue(2), second));
+		assertFalse(writes.offer(new DoubleValue(3)));
+		
+		assertEquals(WriteResult.Status.SUPERSEDED, first.join().getStatus());
+		assertEquals(WriteResult.Status.SUPERSEDED, second.join().getStatus());
+		assertEquals(3, writes.getCount());
+		assertEquals(2, writes.getCoalescedCount());
+		
+		assertTrue(writes.poll());
+		assertEquals(3, writes.getPolledValue().doubleValue(), 0);
+		assertNull(writes.getPolledFuture());
+		assertTrue(writes.isLatest(writes.getPolledSequence()));
+		
+		// The drain keeps polling until nothing is left and only then needs to be dispatched again
+		assertFalse(writes.offer(new DoubleValue(4)));
+		assertTrue(writes.poll());
+		assertFalse(writes.poll());
+		assertTrue(writes.offer(new DoubleValue(5)));
+	}
+
+	@Test
+	public void testSupersede() {
+		WriteFuture future = new WriteFuture("test", new DoubleValue(1));
+		writes.offer(new DoubleValue(1), future);
+		assertTrue(writes.poll());
+		long sequence = writes.getPolledSequence();
+		
+		// A direct write while the polled value is being sent supersedes it
+		long superseding = writes.supersede(2);
+		assertFalse(writes.isLatest(sequence));
+		assertTrue(writes.isLatest(superseding));
+		assertEquals(4, writes.getCount());
+		assertEquals(2, writes.getCoalescedCount());
+		
+		// A pending value is discarded by a direct write
+		WriteFuture pending = new WriteFuture("test", new DoubleValue(2));
+		writes.offer(new DoubleValue(2), pending);
+		writes.supersede();
+		assertEquals(WriteResult.Status.SUPERSEDED, pending.join().getStatus());
+		assertFalse(writes.poll());
+	}
+
+	@Test
+	public void testCancel() {
+		WriteFuture future = new WriteFuture("test", new DoubleValue(1));
+		assertTrue(writes.offer(new DoubleValue(1), future));
+		assertFalse(writes.offerLatest(new DoubleValue(2)));
+		
+		assertEquals(2, writes.cancel());
+		assertEquals(WriteResult.Status.CANCELLED, future.join().getStatus());
+		assertFalse(writes.poll());
+		assertTrue(writes.offer(new DoubleValue(3)));
+	}
+
+	@Test
+	public void testRelease() {
+		WriteFuture future = new WriteFuture("test", new DoubleValue(1));
+		writes.offer(new DoubleValue(1), future);
+		assertTrue(writes.poll());
+		assertFalse(writes.offer(new DoubleValue(2)));
+		
+		// An aborted drain fails the polled value, but leaves pending values to the next drain
+		writes.release();
+		assertEquals(WriteResult.Status.FAILED, future.join().getStatus());
+		assertTrue(writes.offer(new DoubleValue(3)));
+		assertTrue(writes.poll());
+		assertEquals(3, writes.getPolledValue().doubleValue(), 0);
+	}
+
+	@Test
+	public void testDrainFailure() {
+		ChannelWrapper channel = newChannel("test");
+		
+		// The failing latest record must neither stall the drain nor lose later writes
+		channel.setLatestValue(new DoubleValue(1));
+		WriteResult result = channel.writeAsync(new DoubleValue(2)).join();
+		assertEquals(WriteResult.Status.SUCCESS, result.getStatus());
+		assertEquals(2, channel.getWriteCount());
+	}
+
+	private static ChannelWrapper newChannel(String id) {
+		org.openmuc.framework.dataaccess.Channel channel = (org.openmuc.framework.dataaccess.Channel) Proxy.newProxyInstance(
+				TestChannelWrites.class.getClassLoader(), new Class<?>[] { org.openmuc.framework.dataaccess.Channel.class }, 
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getId":
+						return id;
+					case "getValueType":
+						return ValueType.DOUBLE;
+					case "setLatestRecord":
+						throw new IllegalStateException("Driver unavailable");
+					case "write":
+						return Flag.VALID;
+					default:
+						return null;
+					}
+				});
+		return new ChannelWrapper(new ChannelWrapper.ChannelCallbacks() {
+			
+			@Override
+			public void doExecute(Runnable task) {
+				task.run();
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value, WriteFuture future) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, ValueList values) {
+			}
+			
+			@Override
+			public Executor getListenerExecutor(String id) {
+				return Runnable::run;
+			}
+		}, channel);
+	}
+
+}
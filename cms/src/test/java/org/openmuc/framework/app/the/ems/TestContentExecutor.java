@@ -0,0 +1,191 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openmuc.framework.app.the.ems.ContentExecutor.OverloadPolicy;
+
+public class TestContentExecutor {
+
+	private final CountDownLatch blocked = new CountDownLatch(1);
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private ContentExecutor executor;
+
+	@After
+	public void shutdown() throws InterruptedException {
+		blocked.countDown();
+		if (executor != null) {
+			executor.shutdownNow();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testCallerRuns() throws InterruptedException {
+		Task queued = fill(OverloadPolicy.CALLER_RUNS, true);
+		Task task = newTask(true);
+		executor.execute(task);
+		
+		assertTrue(task.isRunByCaller());
+		assertFalse(queued.isDropped());
+		assertEquals(1, executor.getQueueSize());
+	}
+
+	@Test
+	public void testDropOldest() throws InterruptedException {
+		Task queued = fill(OverloadPolicy.DROP_OLDEST, true);
+		Task task = newTask(false);
+		executor.execute(task);
+		
+		// The oldest droppable task makes room for the new one
+		assertTrue(queued.isDropped());
+		assertFalse(task.isRunByCaller());
+		assertEquals(1, executor.getQueueSize());
+		assertEquals(1, executor.getRejectedCount());
+		
+		// No droppable task is queued anymore, so the new one is either dropped or run by the caller
+		Task droppable = newTask(true);
+		executor.execute(droppable);
+		assertTrue(droppable.isDropped());
+		
+		Task other = newTask(false);
+		executor.execute(other);
+		assertTrue(other.isRunByCaller());
+		assertEquals(2, executor.getRejectedCount());
+	}
+
+	@Test
+	public void testBlock() throws InterruptedException {
+		Task queued = fill(OverloadPolicy.BLOCK, false);
+		
+		Task droppable = newTask(true);
+		executor.execute(droppable);
+		assertTrue(droppable.isDropped());
+		
+		// Tasks that may not be dropped are run by the caller after the timeout
+		Task task = newTask(false);
+		executor.execute(task);
+		assertTrue(task.isRunByCaller());
+		assertFalse(queued.isDropped());
+		
+		blocked.countDown();
+		assertTrue(queued.await());
+	}
+
+	@Test
+	public void testBlockInterrupted() throws InterruptedException {
+		fill(OverloadPolicy.BLOCK, false);
+		
+		Task task = newTask(false);
+		Thread.currentThread().interrupt();
+		executor.execute(task);
+		assertTrue(Thread.interrupted());
+		assertTrue(task.isRunByCaller());
+	}
+
+	@Test
+	public void testShutdown() throws InterruptedException {
+		fill(OverloadPolicy.CALLER_RUNS, true);
+		executor.shutdown();
+		
+		Task task = newTask(true);
+		executor.execute(task);
+		assertTrue(task.isCancelled());
+		assertFalse(task.isRunByCaller());
+	}
+
+	/*
+	 * Creates an executor with a single thread and queue slot and occupies both.
+	 */
+	private Task fill(OverloadPolicy policy, boolean droppable) throws InterruptedException {
+		executor = new ContentExecutor(1, 1, policy, 10, r -> new Thread(r, "test-executor"));
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		
+		Task queued = newTask(droppable);
+		executor.execute(queued);
+		assertEquals(1, executor.getQueueSize());
+		return queued;
+	}
+
+	private static Task newTask(boolean droppable) {
+		return droppable ? new DroppableTask() : new Task();
+	}
+
+	private static class Task implements Runnable {
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private volatile Thread thread;
+		volatile boolean dropped = false;
+		volatile boolean cancelled = false;
+
+		@Override
+		public void run() {
+			thread = Thread.currentThread();
+			done.countDown();
+		}
+
+		boolean await() throws InterruptedException {
+			return done.await(1, TimeUnit.SECONDS);
+		}
+
+		boolean isRunByCaller() {
+			return thread == Thread.currentThread();
+		}
+
+		boolean isDropped() {
+			return dropped;
+		}
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	private static class DroppableTask extends Task implements ContentExecutor.DroppableTask {
+
+		@Override
+		public void onDropped() {
+			dropped = true;
+		}
+
+		@Override
+		public void onCancelled() {
+			cancelled = true;
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.framework.config.ConfigService;
+import org.openmuc.framework.data.DoubleValue;
+import org.openmuc.framework.data.Flag;
+import org.openmuc.framework.data.Record;
+import org.openmuc.framework.data.ValueType;
+import org.openmuc.framework.dataaccess.DataAccessService;
+import org.openmuc.framework.dataaccess.RecordListener;
+import org.openmuc.framework.dataaccess.WriteValueContainer;
+import org.the.ems.core.data.ChannelHandle;
+import org.the.ems.core.data.UnknownChannelException;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.data.WriteContainer;
+
+public class TestContentManager {
+
+	private final List<String> ids = new CopyOnWriteArrayList<String>();
+	private final Map<String, RecordListener> listeners = new ConcurrentHashMap<String, RecordListener>();
+
+	private final AtomicInteger scans = new AtomicInteger();
+
+	private final BlockingQueue<Value> values = new LinkedBlockingQueue<Value>();
+	private final ValueListener listener = value -> values.add(value);
+
+	private ContentManager manager;
+
+	@Before
+	public void setup() {
+		DataAccessService access = (DataAccessService) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[] { DataAccessService.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getAllIds":
+						scans.incrementAndGet();
+						return ids;
+					case "getChannel":
+						String id = (String) args[0];
+						return ids.contains(id) ? newChannel(id) : null;
+					case "write":
+						throw new IllegalStateException("Driver not connected");
+					default:
+						return null;
+					}
+				});
+		ConfigService configs = (ConfigService) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[] { ConfigService.class }, (proxy, method, args) -> null);
+		
+		manager = new ContentManager(access, configs);
+		ids.add("room_a");
+		manager.activate(null);
+	}
+
+	@After
+	public void teardown() {
+		manager.deactivate(null);
+	}
+
+	@Test
+	public void testPattern() throws Exception {
+		int count = scans.get();
+		manager.registerValueListener("room_*", listener);
+		
+		// Patterns are matched against the index, without scanning all channels again
+		assertEquals(count, scans.get());
+		
+		newRecord("room_a", 1);
+		assertEquals(1, values.poll(1, TimeUnit.SECONDS).doubleValue(), 0);
+	}
+
+	@Test
+	public void testPatternAdded() throws Exception {
+		manager.registerValueListener("room_*", listener);
+		
+		// Channels added after the registration are attached, once the configuration changed
+		ids.add("room_b");
+		ids.add("hall_a");
+		manager.configurationChanged();
+		
+		newRecord("room_b", 2);
+		assertEquals(2, values.poll(1, TimeUnit.SECONDS).doubleValue(), 0);
+		assertNull(listeners.get("hall_a"));
+	}
+
+	@Test
+	public void testPatternDeregistered() throws Exception {
+		manager.registerValueListener("room_*", listener);
+		manager.deregisterValueListener("room_*", listener);
+		
+		ids.add("room_b");
+		manager.configurationChanged();
+		assertNull(listeners.get("room_b"));
+	}
+
+	@Test
+	public void testUnknownRefresh() throws Exception {
+		int count = scans.get();
+		for (int i = 0; i < 100; i++) {
+			try {
+				manager.getChannel("hall_" + i);
+				fail("Unknown channel resolved");
+				
+			} catch (UnknownChannelException e) {
+			}
+		}
+		// Lookups of unknown channels refresh the index at most once per refresh interval
+		assertTrue(scans.get() - count <= 1);
+	}
+
+	@Test
+	public void testHandles() throws Exception {
+		for (int i = 0; i < 40; i++) {
+			ids.add("room_" + i);
+		}
+		manager.configurationChanged();
+		
+		ChannelHandle[] handles = new ChannelHandle[40];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = manager.getChannelHandle("room_" + i);
+			assertEquals(i, handles[i].getIndex());
+		}
+		for (int i = 0; i < handles.length; i++) {
+			assertSame(manager.getChannel("room_" + i), manager.getChannel(handles[i]));
+			assertSame(handles[i], manager.getChannelHandle("room_" + i));
+		}
+		// Handles not issued by the manager are resolved by their id
+		assertSame(manager.getChannel("room_a"), manager.getChannel(new ChannelHandle("room_a")));
+		
+		ids.remove("room_1");
+		manager.channelDeleted(newChannel("room_1"));
+		try {
+			manager.getChannel(handles[1]);
+			fail("Handle of deleted channel resolved");
+			
+		} catch (UnknownChannelException e) {
+		}
+	}
+
+	@Test
+	public void testWriteFailed() throws Exception {
+		WriteContainer container = new WriteContainer();
+		container.addDouble(manager.getChannel("room_a"), 1, System.currentTimeMillis());
+		manager.write(container);
+		
+		// The exception of the driver is counted as failed write for each value of the batch
+		long timeout = System.currentTimeMillis() + 1000;
+		while (manager.getStatistics().get("room_a").getWriteFailedCount() == 0) {
+			if (System.currentTimeMillis() > timeout) {
+				fail("Failed batch write not counted");
+			}
+			Thread.sleep(10);
+		}
+		assertEquals(1, manager.getStatistics().get("room_a").getWriteFailedCount());
+	}
+
+	private void newRecord(String id, double value) {
+		listeners.get(id).newRecord(new Record(new DoubleValue(value), System.currentTimeMillis(), Flag.VALID));
+	}
+
+	private org.openmuc.framework.dataaccess.Channel newChannel(String id) {
+		return (org.openmuc.framework.dataaccess.Channel) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[] { org.openmuc.framework.dataaccess.Channel.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getId":
+						return id;
+					case "getValueType":
+						return ValueType.DOUBLE;
+					case "addListener":
+						listeners.put(id, (RecordListener) args[0]);
+						return null;
+					case "removeListener":
+						listeners.remove(id, args[0]);
+						return null;
+					case "getWriteContainer":
+						return newWriteContainer((org.openmuc.framework.dataaccess.Channel) proxy);
+					default:
+						return null;
+					}
+				});
+	}
+
+	private WriteValueContainer newWriteContainer(org.openmuc.framework.dataaccess.Channel channel) {
+		return (WriteValueContainer) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[] { WriteValueContainer.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getChannel":
+						return channel;
+					case "getFlag":
+						return Flag.VALID;
+					default:
+						return null;
+					}
+				});
+	}
+
+}
@@ -0,0 +1,129 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TestListenerDispatcher {
+
+	private ListenerDispatcher dispatcher;
+
+	@After
+	public void shutdown() {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+	}
+
+	@Test
+	public void testStripeOrder() throws InterruptedException {
+		dispatcher = new ListenerDispatcher(4, 1000, r -> new Thread(r, "test-dispatcher"));
+		Executor executor = dispatcher.getExecutor("test");
+		assertSame(executor, dispatcher.getExecutor(new String("test")));
+		
+		List<Integer> delivered = new CopyOnWriteArrayList<Integer>();
+		CountDownLatch done = new CountDownLatch(1);
+		for (int i = 0; i < 500; i++) {
+			int index = i;
+			executor.execute(() -> delivered.add(index));
+		}
+		executor.execute(done::countDown);
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+		
+		assertEquals(500, delivered.size());
+		for (int i = 0; i < delivered.size(); i++) {
+			assertEquals(i, (int) delivered.get(i));
+		}
+	}
+
+	@Test
+	public void testFullQueue() throws InterruptedException {
+		dispatcher = new ListenerDispatcher(1, 1, r -> new Thread(r, "test-dispatcher"));
+		Executor executor = dispatcher.getExecutor("test");
+		
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		executor.execute(() -> {});
+		
+		// The delivering thread must never wait for the full queue
+		AtomicBoolean dropped = new AtomicBoolean();
+		long start = System.nanoTime();
+		executor.execute(new ContentExecutor.DroppableTask() {
+			
+			@Override
+			public void run() {
+			}
+			
+			@Override
+			public void onDropped() {
+				dropped.set(true);
+			}
+		});
+		executor.execute(() -> {});
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+		
+		assertTrue(dropped.get());
+		assertEquals(2, dispatcher.getDroppedCount());
+		assertEquals(1, dispatcher.getQueueSize());
+		blocked.countDown();
+	}
+
+	@Test
+	public void testShutdown() {
+		dispatcher = new ListenerDispatcher(1, 1, r -> new Thread(r, "test-dispatcher"));
+		dispatcher.shutdown();
+		
+		AtomicBoolean dropped = new AtomicBoolean();
+		dispatcher.getExecutor("test").execute(new ContentExecutor.DroppableTask() {
+			
+			@Override
+			public void run() {
+			}
+			
+			@Override
+			public void onDropped() {
+				dropped.set(true);
+			}
+		});
+		assertTrue(dropped.get());
+		assertEquals(0, dispatcher.getDroppedCount());
+	}
+
+}
@@ -0,0 +1,161 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.the.ems.core.data.BooleanValue;
+import org.the.ems.core.data.ByteValue;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.FloatValue;
+import org.the.ems.core.data.IntValue;
+import org.the.ems.core.data.LongValue;
+import org.the.ems.core.data.PrimitiveValueListener;
+import org.the.ems.core.data.ShortValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueType;
+import org.the.ems.core.data.WriteContainer;
+
+public class TestRecordCodec {
+
+	private final static long TIME = 1600000000000L;
+
+	private final static Value[] VALUES = new Value[] {
+			new BooleanValue(true, TIME),
+			new ByteValue((byte) 0x7F, TIME),
+			new ShortValue((short) -1234, TIME),
+			new IntValue(123456, TIME),
+			new LongValue(1234567890123L, TIME),
+			new FloatValue(1.5f, TIME),
+			new DoubleValue(-0.25, TIME)
+	};
+
+	@Test
+	public void testDecode() {
+		for (Value value : VALUES) {
+			RecordCodec codec = RecordCodec.forType(value.getType());
+			Value decoded = codec.decode(codec.encode(value), TIME);
+			
+			assertEquals(value.getType(), decoded.getType());
+			assertEquals(value.doubleValue(), decoded.doubleValue(), 0);
+			assertEquals(TIME, decoded.getTime());
+		}
+	}
+
+	@Test
+	public void testForType() {
+		for (Value value : VALUES) {
+			RecordCodec codec = RecordCodec.forType(value.getType());
+			assertEquals(codec, RecordCodec.forType(org.openmuc.framework.data.ValueType.valueOf(value.getType().name())));
+			assertEquals(value.getType().name(), codec.name());
+		}
+	}
+
+	@Test
+	public void testDispatch() {
+		for (Value value : VALUES) {
+			RecordCodec codec = RecordCodec.forType(value.getType());
+			String[] received = new String[1];
+			double[] receivedValue = new double[1];
+			PrimitiveValueListener listener = newListener(received, receivedValue);
+			
+			codec.dispatch(listener, codec.encode(value), TIME);
+			assertEquals(value.getType().name(), received[0]);
+			assertEquals(value.doubleValue(), receivedValue[0], 0);
+		}
+	}
+
+	@Test
+	public void testEncodeValueType() {
+		// Written values keep their own type, so the driver converts them as before
+		org.openmuc.framework.data.Value encoded = ChannelWrapper.encodeValue(new DoubleValue(0.5, TIME));
+		assertTrue(encoded instanceof org.openmuc.framework.data.DoubleValue);
+		assertEquals(0.5, encoded.asDouble(), 0);
+		
+		encoded = ChannelWrapper.encodeValue(new FloatValue(2.75f, TIME));
+		assertTrue(encoded instanceof org.openmuc.framework.data.FloatValue);
+		assertEquals(2.75, encoded.asDouble(), 0);
+	}
+
+	@Test
+	public void testEncodeContainer() {
+		ChannelWrapper channel = TestTimerWheel.newChannel("test");
+		WriteContainer container = new WriteContainer();
+		for (Value value : VALUES) {
+			container.add(channel, value);
+		}
+		for (int i = container.getFirstValueIndex(0), j = 0; i >= 0; i = container.getNextValueIndex(i), j++) {
+			ValueType type = container.getType(i);
+			org.openmuc.framework.data.Value encoded = RecordCodec.forType(type).encode(container, i);
+			assertEquals(VALUES[j].getType(), type);
+			assertEquals(VALUES[j].doubleValue(), encoded.asDouble(), 0);
+		}
+	}
+
+	private static PrimitiveValueListener newListener(String[] received, double[] value) {
+		return new PrimitiveValueListener() {
+
+			@Override
+			public void onDouble(long time, double v) {
+				received[0] = "DOUBLE";
+				value[0] = v;
+			}
+
+			@Override
+			public void onFloat(long time, float v) {
+				received[0] = "FLOAT";
+				value[0] = v;
+			}
+
+			@Override
+			public void onLong(long time, long v) {
+				received[0] = "LONG";
+				value[0] = v;
+			}
+
+			@Override
+			public void onInteger(long time, int v) {
+				received[0] = "INTEGER";
+				value[0] = v;
+			}
+
+			@Override
+			public void onShort(long time, short v) {
+				received[0] = "SHORT";
+				value[0] = v;
+			}
+
+			@Override
+			public void onByte(long time, byte v) {
+				received[0] = "BYTE";
+				value[0] = v;
+			}
+
+			@Override
+			public void onBoolean(long time, boolean v) {
+				received[0] = "BOOLEAN";
+				value[0] = v ? 1 : 0;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,188 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.framework.data.ValueType;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+import org.the.ems.core.data.WriteResult;
+
+public class TestTimerWheel {
+
+	private final static long TICK = 10;
+
+	private final List<TimerWheel.Entry> expired = new ArrayList<TimerWheel.Entry>();
+
+	private TimerWheel timers;
+	private ChannelWrapper channel;
+	private long time;
+
+	@Before
+	public void setup() {
+		timers = new TimerWheel(entries -> {}, TICK);
+		channel = newChannel("test");
+		
+		// Values are scheduled well ahead, so the ticks passing during the test do not matter
+		time = (System.currentTimeMillis()/TICK + 100)*TICK;
+	}
+
+	@Test
+	public void testCascade() {
+		// Two hours ahead, the value is held in a higher level and needs to cascade down several times
+		long delay = 7200000;
+		timers.schedule(channel, new DoubleValue(1, time + delay));
+		
+		timers.advance((time + delay)/TICK - 1, expired);
+		assertTrue(expired.isEmpty());
+		assertEquals(1, timers.size());
+		
+		timers.advance((time + delay)/TICK, expired);
+		assertEquals(1, expired.size());
+		assertEquals(time + delay, expired.get(0).getValue().getTime());
+		assertEquals(0, timers.size());
+		assertTrue(channel.getTimers().isEmpty());
+	}
+
+	@Test
+	public void testCancel() {
+		WriteFuture future = new WriteFuture(channel.getId(), new DoubleValue(1, time));
+		timers.schedule(channel, new DoubleValue(1, time), future);
+		timers.schedule(channel, new DoubleValue(2, time + 100000));
+		timers.cancel(channel);
+		
+		assertEquals(0, timers.size());
+		assertTrue(channel.getTimers().isEmpty());
+		assertEquals(WriteResult.Status.CANCELLED, future.join().getStatus());
+		
+		timers.advance((time + 100000)/TICK, expired);
+		assertTrue(expired.isEmpty());
+	}
+
+	@Test
+	public void testReplace() {
+		WriteFuture future = new WriteFuture(channel.getId(), new DoubleValue(1, time));
+		timers.schedule(channel, new DoubleValue(1, time), future);
+		timers.schedule(channel, new DoubleValue(2, time));
+		
+		assertEquals(1, timers.size());
+		assertEquals(WriteResult.Status.SUPERSEDED, future.join().getStatus());
+		
+		timers.advance(time/TICK, expired);
+		assertEquals(1, expired.size());
+		assertEquals(2, expired.get(0).getValue().doubleValue(), 0);
+	}
+
+	@Test
+	public void testReplaceList() {
+		timers.schedule(channel, new DoubleValue(1, time));
+		timers.schedule(channel, new DoubleValue(2, time + TICK));
+		
+		ValueList values = new ValueList();
+		values.add(new DoubleValue(3, time + TICK));
+		values.add(new DoubleValue(4, time + 2*TICK));
+		timers.schedule(channel, values);
+		assertEquals(3, timers.size());
+		
+		timers.advance((time + 2*TICK)/TICK, expired);
+		assertEquals(3, expired.size());
+		assertEquals(1, expired.get(0).getValue().doubleValue(), 0);
+		assertEquals(3, expired.get(1).getValue().doubleValue(), 0);
+		assertEquals(4, expired.get(2).getValue().doubleValue(), 0);
+	}
+
+	@Test
+	public void testSameTick() {
+		// Values expiring in the same tick are passed on in order of their timestamps
+		timers.schedule(channel, new DoubleValue(3, time + 3));
+		timers.schedule(channel, new DoubleValue(1, time + 1));
+		timers.schedule(channel, new DoubleValue(2, time + 2));
+		
+		ChannelWrapper other = newChannel("other");
+		timers.schedule(other, new DoubleValue(0, time + 1));
+		timers.schedule(other, new DoubleValue(0, time + 100000));
+		
+		timers.advance((time + TICK)/TICK, expired);
+		List<Value> values = new ArrayList<Value>();
+		for (TimerWheel.Entry entry : expired) {
+			if (entry.getChannel() == channel) {
+				values.add(entry.getValue());
+			}
+		}
+		assertEquals(4, expired.size());
+		assertEquals(3, values.size());
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(i + 1, values.get(i).doubleValue(), 0);
+		}
+		assertTrue(channel.getTimers().isEmpty());
+		assertEquals(1, other.getTimers().size());
+		assertEquals(1, timers.size());
+	}
+
+	static ChannelWrapper newChannel(String id) {
+		org.openmuc.framework.dataaccess.Channel channel = (org.openmuc.framework.dataaccess.Channel) Proxy.newProxyInstance(
+				TestTimerWheel.class.getClassLoader(), new Class<?>[] { org.openmuc.framework.dataaccess.Channel.class }, 
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getId":
+						return id;
+					case "getValueType":
+						return ValueType.DOUBLE;
+					default:
+						return null;
+					}
+				});
+		return new ChannelWrapper(new ChannelWrapper.ChannelCallbacks() {
+			
+			@Override
+			public void doExecute(Runnable task) {
+				task.run();
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, Value value, WriteFuture future) {
+			}
+			
+			@Override
+			public void doSchedule(ChannelWrapper channel, ValueList values) {
+			}
+			
+			@Override
+			public Executor getListenerExecutor(String id) {
+				return Runnable::run;
+			}
+		}, channel);
+	}
+
+}
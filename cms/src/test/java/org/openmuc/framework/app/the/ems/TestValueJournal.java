@@ -0,0 +1,240 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openmuc.framework.app.the.ems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmuc.framework.data.DoubleValue;
+import org.openmuc.framework.data.Flag;
+import org.openmuc.framework.data.Record;
+import org.openmuc.framework.data.ValueType;
+import org.the.ems.core.data.Value;
+
+public class TestValueJournal {
+
+	private final static int SEGMENT_SIZE = 4096;
+
+	private final static int HEADER_SIZE = 16;
+	private final static int RECORD_HEADER_SIZE = 8;
+
+	private File directory;
+
+	@Before
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal").toFile();
+	}
+
+	@After
+	public void teardown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testSelected() {
+		ValueJournal journal = newJournal();
+		assertTrue(journal.isSelected("room_a"));
+		assertFalse(journal.isSelected("hall_a"));
+		
+		StringBuilder id = new StringBuilder("room_");
+		while (id.length() <= 0xFFFF) {
+			id.append('a');
+		}
+		assertFalse(journal.isSelected(id.toString()));
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		ValueJournal journal = newJournal();
+		assertTrue(journal.open().isEmpty());
+		
+		ValueJournal.Slot a = journal.newSlot("room_a");
+		ValueJournal.Slot b = journal.newSlot("room_b");
+		append(journal, a, 1);
+		append(journal, b, 2);
+		journal.checkpoint();
+		append(journal, a, 3);
+		journal.shutdown();
+		
+		Map<String, Value> values = newJournal().open();
+		assertEquals(2, values.size());
+		assertEquals(3, values.get("room_a").doubleValue(), 0);
+		assertEquals(2, values.get("room_b").doubleValue(), 0);
+	}
+
+	@Test
+	public void testChecksum() throws IOException {
+		ValueJournal journal = newJournal();
+		journal.open();
+		
+		ValueJournal.Slot slot = journal.newSlot("room_a");
+		append(journal, slot, 1);
+		append(journal, slot, 2);
+		journal.shutdown();
+		
+		// The replay stops at the corrupted last record, keeping the value before
+		corrupt(getLatestSegment(), -1);
+		
+		Map<String, Value> values = newJournal().open();
+		assertEquals(1, values.get("room_a").doubleValue(), 0);
+	}
+
+	@Test
+	public void testIncompleteCheckpoint() throws IOException {
+		ValueJournal journal = newJournal();
+		journal.open();
+		
+		ValueJournal.Slot slot = journal.newSlot("room_a");
+		append(journal, slot, 1);
+		journal.checkpoint();
+		append(journal, slot, 2);
+		journal.shutdown();
+		
+		// The first record of the latest checkpoint is corrupted, so the former generation is replayed
+		corrupt(getLatestSegment(), 0);
+		
+		Map<String, Value> values = newJournal().open();
+		assertEquals(1, values.get("room_a").doubleValue(), 0);
+	}
+
+	@Test
+	public void testInvalidatedCheckpoint() throws IOException {
+		ValueJournal journal = newJournal();
+		journal.open();
+		
+		ValueJournal.Slot slot = journal.newSlot("room_a");
+		append(journal, slot, 1);
+		journal.checkpoint();
+		append(journal, slot, 2);
+		journal.shutdown();
+		
+		// A checkpoint interrupted while writing leaves the generation of its segment invalidated
+		try (RandomAccessFile file = new RandomAccessFile(getLatestSegment(), "rw")) {
+			file.seek(8);
+			file.writeLong(0);
+		}
+		Map<String, Value> values = newJournal().open();
+		assertEquals(1, values.get("room_a").doubleValue(), 0);
+	}
+
+	@Test
+	public void testSegmentTooSmall() throws IOException {
+		ValueJournal journal = newJournal(256);
+		journal.open();
+		
+		int count = 0;
+		while (!journal.isDisabled()) {
+			append(journal, journal.newSlot("room_" + count), count);
+			assertTrue(++count < 100);
+		}
+		// The values journaled until the journal was disabled are not written anymore
+		append(journal, journal.newSlot("room_a"), -1);
+		assertFalse(journal.checkpoint());
+		journal.shutdown();
+		
+		// The former segment is still valid and replayed, without the values that did not fit
+		Map<String, Value> values = newJournal(256).open();
+		assertFalse(values.isEmpty());
+		assertTrue(values.size() < count);
+		assertFalse(values.containsKey("room_a"));
+		for (Map.Entry<String, Value> value : values.entrySet()) {
+			assertEquals(value.getKey(), "room_" + (int) value.getValue().doubleValue());
+		}
+	}
+
+	@Test
+	public void testSegmentTooSmallToOpen() {
+		try {
+			newJournal(HEADER_SIZE + RECORD_HEADER_SIZE).open();
+			fail("Expected the journal to fail opening");
+			
+		} catch (IOException e) {
+		}
+	}
+
+	private ValueJournal newJournal() {
+		return newJournal(SEGMENT_SIZE);
+	}
+
+	private ValueJournal newJournal(int segmentSize) {
+		return new ValueJournal(directory, segmentSize, 60000, "room_*");
+	}
+
+	private static void append(ValueJournal journal, ValueJournal.Slot slot, double value) {
+		Record record = new Record(new DoubleValue(value), System.currentTimeMillis(), Flag.VALID);
+		journal.append(slot, record, RecordCodec.forType(ValueType.DOUBLE));
+		journal.drain();
+	}
+
+	private File getLatestSegment() throws IOException {
+		File latest = null;
+		long generation = 0;
+		for (int i = 0; i < 2; i++) {
+			File segment = new File(directory, "segment." + i);
+			try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+				file.seek(8);
+				long g = file.readLong();
+				if (g > generation) {
+					generation = g;
+					latest = segment;
+				}
+			}
+		}
+		return latest;
+	}
+
+	/*
+	 * Flips the first byte of the channel id of the record at the index, or the last record if negative.
+	 */
+	private static void corrupt(File segment, int index) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+			long position = HEADER_SIZE;
+			long record = position;
+			for (int i = 0; index < 0 || i <= index; i++) {
+				file.seek(position);
+				int length = file.readInt();
+				if (length == 0) {
+					break;
+				}
+				record = position;
+				position += RECORD_HEADER_SIZE + length;
+			}
+			file.seek(record + RECORD_HEADER_SIZE + 2);
+			int b = file.read();
+			file.seek(record + RECORD_HEADER_SIZE + 2);
+			file.write(b ^ 0xFF);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import java.util.SplittableRandom;
+
+public class RandomWalkSignal implements Signal {
+
+	private final SplittableRandom random = new SplittableRandom();
+
+	private final double step;
+	private final double minimum;
+	private final double maximum;
+
+	private double value;
+
+	public RandomWalkSignal(double value, double step, double minimum, double maximum) {
+		if (minimum > maximum) {
+			throw new IllegalArgumentException("Invalid random walk bounds: " + minimum + " > " + maximum);
+		}
+		this.value = value;
+		this.step = step;
+		this.minimum = minimum;
+		this.maximum = maximum;
+	}
+
+	@Override
+	public synchronized double next(long time) {
+		value += (2*random.nextDouble() - 1)*step;
+		if (value < minimum) {
+			value = 2*minimum - value;
+		}
+		else if (value > maximum) {
+			value = 2*maximum - value;
+		}
+		value = Math.max(minimum, Math.min(maximum, value));
+		return value;
+	}
+
+}
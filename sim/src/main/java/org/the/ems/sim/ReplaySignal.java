@@ -0,0 +1,101 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Signal replaying the values of a CSV file in a loop.
+ * <p>
+ * Each line holds the time in milliseconds and the value, separated by a comma. Lines starting with 
+ * a '#' will be ignored. Times are relative to the first line, and the file will be repeated after its 
+ * last time.
+ */
+public class ReplaySignal implements Signal {
+
+	private final long[] times;
+	private final double[] values;
+	private final long duration;
+
+	public ReplaySignal(File file) throws IOException {
+		long[] times = new long[64];
+		double[] values = new double[64];
+		int size = 0;
+		
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] columns = line.split(",");
+				if (columns.length < 2) {
+					throw new IOException("Invalid replay line: " + line);
+				}
+				if (size == times.length) {
+					times = Arrays.copyOf(times, size*2);
+					values = Arrays.copyOf(values, size*2);
+				}
+				try {
+					times[size] = Long.parseLong(columns[0].trim());
+					values[size] = Double.parseDouble(columns[1].trim());
+					
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid replay line: " + line);
+				}
+				if (size > 0 && times[size] < times[size - 1]) {
+					throw new IOException("Replay times not in order: " + line);
+				}
+				size++;
+			}
+		}
+		if (size == 0) {
+			throw new IOException("Empty replay file: " + file);
+		}
+		this.times = Arrays.copyOf(times, size);
+		this.values = Arrays.copyOf(values, size);
+		for (int i = size - 1; i >= 0; i--) {
+			this.times[i] -= this.times[0];
+		}
+		this.duration = this.times[size - 1] + 1;
+	}
+
+	@Override
+	public double next(long time) {
+		long offset = Math.floorMod(time, duration);
+		int index = Arrays.binarySearch(times, offset);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		else {
+			// Use the last of several values with the same time
+			while (index < times.length - 1 && times[index + 1] == offset) {
+				index++;
+			}
+		}
+		return values[Math.max(index, 0)];
+	}
+
+}
@@ -0,0 +1,152 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.the.ems.core.data.Channel;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+import org.the.ems.core.data.ValueListener;
+
+public class SimulatedChannel implements Channel {
+
+	private final String id;
+	private final Signal signal;
+
+	private final WriteRecorder recorder;
+	private final ScheduledExecutorService executor;
+	private final Executor listenerExecutor;
+
+	private final CopyOnWriteArrayList<ValueListener> listeners = new CopyOnWriteArrayList<ValueListener>();
+
+	private volatile Value latestValue = null;
+
+	private final AtomicLong count = new AtomicLong();
+
+	public SimulatedChannel(String id, Signal signal, WriteRecorder recorder, 
+			ScheduledExecutorService executor, Executor listenerExecutor) {
+		this.id = id;
+		this.signal = signal;
+		this.recorder = recorder;
+		this.executor = executor;
+		this.listenerExecutor = listenerExecutor;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/*
+	 * Generates the next value of the signal and notifies all listeners.
+	 */
+	void generate(long time) {
+		if (signal == null) {
+			return;
+		}
+		double value = signal.next(time);
+		notify(new DoubleValue(value, time));
+	}
+
+	private void notify(Value value) {
+		latestValue = value;
+		count.incrementAndGet();
+		if (listeners.isEmpty()) {
+			return;
+		}
+		// Listeners are notified on their own thread, to not delay the generation of other channels
+		try {
+			listenerExecutor.execute(() -> {
+				for (ValueListener listener : listeners) {
+					listener.onValueReceived(value);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// The simulation was stopped and listeners will not be notified anymore
+		}
+	}
+
+	/*
+	 * Returns the number of values this channel notified its listeners of.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public Value getLatestValue() {
+		return latestValue;
+	}
+
+	@Override
+	public Value getLatestValue(ValueListener listener) {
+		registerValueListener(listener);
+		return latestValue;
+	}
+
+	@Override
+	public void registerValueListener(ValueListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	@Override
+	public void deregisterValueListener(ValueListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void setLatestValue(Value value) {
+		notify(value);
+	}
+
+	@Override
+	public void write(Value value) {
+		long requested = System.nanoTime();
+		long delay = value.getTime() - System.currentTimeMillis();
+		if (delay > 0) {
+			// The latency of future values is measured from the time they were due
+			long due = requested + TimeUnit.MILLISECONDS.toNanos(delay);
+			executor.schedule(() -> apply(value, due), delay, TimeUnit.MILLISECONDS);
+		}
+		else {
+			apply(value, requested);
+		}
+	}
+
+	@Override
+	public void write(ValueList values) {
+		for (Value value : values) {
+			write(value);
+		}
+	}
+
+	private void apply(Value value, long requested) {
+		notify(value);
+		recorder.record(id, value, System.nanoTime() - requested);
+	}
+
+}
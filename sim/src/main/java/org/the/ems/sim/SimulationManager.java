@@ -0,0 +1,371 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.the.ems.core.ContentManagementService;
+import org.the.ems.core.data.Channel;
+import org.the.ems.core.data.UnknownChannelException;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueList;
+import org.the.ems.core.data.ValueListener;
+import org.the.ems.core.schedule.NamedThreadFactory;
+
+/**
+ * In-memory content management system, simulating synthetic signals for all channels.
+ * <p>
+ * Signals are configured per channel id in a properties file, e.g. <code>temp.signal = sine</code>,
+ * with the settings <code>value</code> for constant signals, <code>offset</code>, <code>amplitude</code>
+ * and <code>period</code> for sine signals, <code>value</code>, <code>step</code>, <code>min</code> and 
+ * <code>max</code> for random walks and <code>file</code> for replayed signals. The <code>interval</code>
+ * in milliseconds sets the rate of generated values, where an interval of 0 disables the generation. 
+ * Channels that are not configured use the settings prefixed by <code>default</code>.
+ * <p>
+ * Listeners may be registered for channel id patterns with the wildcards <code>?</code> and <code>*</code>,
+ * which are attached to all simulated channels matching them, including channels created later.
+ */
+@Component(
+	immediate = true,
+	service = ContentManagementService.class
+)
+public class SimulationManager implements ContentManagementService {
+	private final static Logger logger = LoggerFactory.getLogger(SimulationManager.class);
+
+	private final static String CONFIG_DEFAULT = "conf" + File.separator + "th-e-sim.cfg";
+	private final static String CONFIG = System.getProperty("org.the.ems.sim.config", CONFIG_DEFAULT);
+
+	private final static String WRITES_FILE = System.getProperty("org.the.ems.sim.writes.file");
+
+	private final static int WRITES_SIZE_DEFAULT = 100000;
+	private final static int WRITES_SIZE = Integer.getInteger("org.the.ems.sim.writes.size", WRITES_SIZE_DEFAULT);
+
+	private final static int POOL_SIZE_DEFAULT = Runtime.getRuntime().availableProcessors();
+	private final static int POOL_SIZE = Integer.getInteger("org.the.ems.sim.pool.size", POOL_SIZE_DEFAULT);
+
+	private final static String DEFAULT = "default";
+	private final static String SIGNAL = "signal";
+
+	private final Map<String, SimulatedChannel> channels = new ConcurrentHashMap<String, SimulatedChannel>();
+
+	// Channels grouped by their interval, to be generated by a single task
+	private final Map<Long, List<SimulatedChannel>> intervals = new ConcurrentHashMap<Long, List<SimulatedChannel>>();
+
+	private final List<PatternListener> patterns = new CopyOnWriteArrayList<PatternListener>();
+
+	private final Properties properties = new Properties();
+
+	private final WriteRecorder recorder = new WriteRecorder(WRITES_SIZE);
+
+	private ScheduledExecutorService executor = null;
+
+	// Single thread notifying listeners, to keep the values of each channel in order
+	private ExecutorService listenerExecutor = null;
+
+	@Activate
+	protected void activate(ComponentContext context) {
+		logger.info("Activating TH-E Content Management System Simulation");
+		
+		File file = new File(CONFIG);
+		if (file.exists()) {
+			try (InputStream stream = new FileInputStream(file)) {
+				properties.load(stream);
+				
+			} catch (IOException e) {
+				logger.warn("Error reading simulation configuration \"{}\": {}", CONFIG, e.getMessage());
+			}
+		}
+		executor = Executors.newScheduledThreadPool(POOL_SIZE, new NamedThreadFactory("TH-E Simulation Pool - thread-"));
+		listenerExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("TH-E Simulation Listener - thread-"));
+		
+		for (String key : properties.stringPropertyNames()) {
+			if (key.endsWith("." + SIGNAL)) {
+				String id = key.substring(0, key.length() - SIGNAL.length() - 1);
+				if (!id.equals(DEFAULT)) {
+					getSimulatedChannel(id);
+				}
+			}
+		}
+	}
+
+	@Deactivate
+	protected void deactivate(ComponentContext context) {
+		logger.info("Deactivating TH-E Content Management System Simulation");
+		
+		executor.shutdownNow();
+		listenerExecutor.shutdownNow();
+		
+		long count = 0;
+		for (SimulatedChannel channel : channels.values()) {
+			count += channel.getCount();
+		}
+		logger.info("Simulated {} values for {} channels and recorded {} writes with mean latency of {}ms", 
+				count, channels.size(), recorder.getCount(), recorder.getLatencyMean());
+		if (recorder.getOverwrittenCount() > 0) {
+			logger.warn("Recorded writes exceeded the buffer size of {}, {} writes were overwritten", 
+					WRITES_SIZE, recorder.getOverwrittenCount());
+		}
+		
+		// Channels hold the executors that were shut down and are created again on the next activation
+		channels.clear();
+		intervals.clear();
+		properties.clear();
+		
+		if (WRITES_FILE != null) {
+			try {
+				recorder.export(new File(WRITES_FILE));
+				
+			} catch (IOException e) {
+				logger.warn("Error exporting recorded writes to \"{}\": {}", WRITES_FILE, e.getMessage());
+			}
+		}
+	}
+
+	private SimulatedChannel getSimulatedChannel(String id) {
+		return channels.computeIfAbsent(id, i -> {
+			SimulatedChannel channel = new SimulatedChannel(i, newSignal(i), recorder, executor, listenerExecutor);
+			for (PatternListener pattern : patterns) {
+				if (pattern.matches(i)) {
+					channel.registerValueListener(pattern.listener);
+				}
+			}
+			
+			long interval = (long) getSetting(i, "interval", 1000);
+			if (interval > 0) {
+				intervals.computeIfAbsent(interval, this::newInterval).add(channel);
+			}
+			return channel;
+		});
+	}
+
+	private List<SimulatedChannel> newInterval(long interval) {
+		List<SimulatedChannel> channels = new CopyOnWriteArrayList<SimulatedChannel>();
+		executor.scheduleAtFixedRate(() -> {
+			long time = System.currentTimeMillis();
+			for (SimulatedChannel channel : channels) {
+				try {
+					channel.generate(time);
+					
+				} catch (Exception e) {
+					logger.warn("Error generating value for channel \"{}\": {}", channel.getId(), e.getMessage());
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+		
+		return channels;
+	}
+
+	private Signal newSignal(String id) {
+		String signal = getSetting(id, SIGNAL, "constant").trim().toLowerCase();
+		try {
+			switch (signal) {
+			case "sine":
+				return new SineSignal(getSetting(id, "offset", 0), getSetting(id, "amplitude", 1), 
+						(long) getSetting(id, "period", 86400000));
+			case "walk":
+				return new RandomWalkSignal(getSetting(id, "value", 0), getSetting(id, "step", 1),
+						getSetting(id, "min", -Double.MAX_VALUE), getSetting(id, "max", Double.MAX_VALUE));
+			case "replay":
+				return new ReplaySignal(new File(getSetting(id, "file", id + ".csv")));
+			case "constant":
+				return new ConstantSignal(getSetting(id, "value", 0));
+			default:
+				logger.warn("Unknown signal \"{}\" for channel \"{}\"", signal, id);
+				return null;
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("Error creating signal for channel \"{}\": {}", id, e.getMessage());
+			return null;
+		}
+	}
+
+	private String getSetting(String id, String key, String defaultValue) {
+		String value = properties.getProperty(id + "." + key);
+		if (value == null) {
+			value = properties.getProperty(DEFAULT + "." + key, defaultValue);
+		}
+		return value;
+	}
+
+	private double getSetting(String id, String key, double defaultValue) {
+		String value = getSetting(id, key, (String) null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+			
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid setting {} of channel \"{}\": {}", key, id, value);
+			return defaultValue;
+		}
+	}
+
+	@Override
+	public Channel getChannel(String id) throws UnknownChannelException {
+		if (id == null || id.isEmpty()) {
+			throw new UnknownChannelException("Unknown channel for id: " + id);
+		}
+		return getSimulatedChannel(id);
+	}
+
+	@Override
+	public void registerValueListener(String id, ValueListener listener) throws UnknownChannelException {
+		if (isPattern(id)) {
+			PatternListener pattern = new PatternListener(id, listener);
+			if (!patterns.contains(pattern)) {
+				patterns.add(pattern);
+			}
+			for (SimulatedChannel channel : channels.values()) {
+				if (pattern.matches(channel.getId())) {
+					channel.registerValueListener(listener);
+				}
+			}
+			return;
+		}
+		getChannel(id).registerValueListener(listener);
+	}
+
+	@Override
+	public void deregisterValueListener(String id, ValueListener listener) throws UnknownChannelException {
+		if (isPattern(id)) {
+			PatternListener pattern = new PatternListener(id, listener);
+			if (!patterns.remove(pattern)) {
+				return;
+			}
+			for (SimulatedChannel channel : channels.values()) {
+				if (pattern.matches(channel.getId()) && !isSubscribed(channel.getId(), listener)) {
+					channel.deregisterValueListener(listener);
+				}
+			}
+			return;
+		}
+		getChannel(id).deregisterValueListener(listener);
+	}
+
+	private boolean isSubscribed(String id, ValueListener listener) {
+		for (PatternListener pattern : patterns) {
+			if (pattern.listener.equals(listener) && pattern.matches(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isPattern(String id) {
+		return id.indexOf('*') >= 0 || id.indexOf('?') >= 0;
+	}
+
+	@Override
+	public Value getLatestValue(String id, ValueListener listener) throws UnknownChannelException {
+		return getChannel(id).getLatestValue(listener);
+	}
+
+	@Override
+	public Value getLatestValue(String id) throws UnknownChannelException {
+		return getChannel(id).getLatestValue();
+	}
+
+	@Override
+	public void setLatestValue(String id, Value value) throws UnknownChannelException {
+		getChannel(id).setLatestValue(value);
+	}
+
+	@Override
+	public void write(String id, Value value) throws UnknownChannelException {
+		getChannel(id).write(value);
+	}
+
+	@Override
+	public void write(String id, ValueList values) throws UnknownChannelException {
+		getChannel(id).write(values);
+	}
+
+	private static class PatternListener {
+
+		private final String pattern;
+		private final Pattern regex;
+
+		private final ValueListener listener;
+
+		private PatternListener(String pattern, ValueListener listener) {
+			this.pattern = pattern;
+			this.regex = compile(pattern);
+			this.listener = listener;
+		}
+
+		private boolean matches(String id) {
+			return regex.matcher(id).matches();
+		}
+
+		private static Pattern compile(String pattern) {
+			StringBuilder regex = new StringBuilder();
+			int start = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (c == '?' || c == '*') {
+					if (i > start) {
+						regex.append(Pattern.quote(pattern.substring(start, i)));
+					}
+					regex.append(c == '?' ? ".?" : ".*?");
+					start = i + 1;
+				}
+			}
+			if (start < pattern.length()) {
+				regex.append(Pattern.quote(pattern.substring(start)));
+			}
+			return Pattern.compile(regex.toString());
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof PatternListener)) {
+				return false;
+			}
+			PatternListener other = (PatternListener) o;
+			return pattern.equals(other.pattern) && listener.equals(other.listener);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*pattern.hashCode() + listener.hashCode();
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+public class SineSignal implements Signal {
+
+	private final double offset;
+	private final double amplitude;
+	private final long period;
+
+	public SineSignal(double offset, double amplitude, long period) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Invalid sine period: " + period);
+		}
+		this.offset = offset;
+		this.amplitude = amplitude;
+		this.period = period;
+	}
+
+	@Override
+	public double next(long time) {
+		return offset + amplitude*Math.sin(2*Math.PI*(time % period)/period);
+	}
+
+}
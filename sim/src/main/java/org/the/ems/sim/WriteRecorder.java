@@ -0,0 +1,117 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.the.ems.core.data.Value;
+
+/**
+ * Records the latest written values of all simulated channels in a ring buffer, together with
+ * the latency from the write request, or the time the value was due, until the value was applied.
+ * <p>
+ * Once the buffer is full, the oldest values are overwritten. They are still part of the latency 
+ * statistics, but will be missing from the export, which is reported by {@link #getOverwrittenCount()}.
+ */
+public class WriteRecorder {
+
+	private final int capacity;
+
+	private final String[] ids;
+	private final long[] times;
+	private final double[] values;
+	private final long[] latencies;
+
+	private long count = 0;
+	private long latencySum = 0;
+	private long latencyMax = 0;
+
+	public WriteRecorder(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		this.ids = new String[this.capacity];
+		this.times = new long[this.capacity];
+		this.values = new double[this.capacity];
+		this.latencies = new long[this.capacity];
+	}
+
+	/**
+	 * Records a written value, with the latency in nanoseconds.
+	 */
+	public synchronized void record(String id, Value value, long latency) {
+		int index = (int) (count++ % capacity);
+		ids[index] = id;
+		times[index] = value.getTime();
+		values[index] = value.doubleValue();
+		latencies[index] = latency;
+		latencySum += latency;
+		if (latency > latencyMax) {
+			latencyMax = latency;
+		}
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/*
+	 * Returns the number of recorded values that were overwritten and will not be exported.
+	 */
+	public synchronized long getOverwrittenCount() {
+		return Math.max(count - capacity, 0);
+	}
+
+	/*
+	 * Returns the mean latency of all recorded writes in milliseconds.
+	 */
+	public synchronized double getLatencyMean() {
+		if (count == 0) {
+			return 0;
+		}
+		return latencySum/(double) count/1000000.0;
+	}
+
+	/*
+	 * Returns the maximum latency of all recorded writes in milliseconds.
+	 */
+	public synchronized double getLatencyMax() {
+		return latencyMax/1000000.0;
+	}
+
+	/**
+	 * Writes the recorded values to a CSV file, with the latencies in microseconds.
+	 */
+	public synchronized void export(File file) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			writer.write("id,time,value,latency");
+			writer.newLine();
+			
+			long start = Math.max(count - capacity, 0);
+			for (long i = start; i < count; i++) {
+				int index = (int) (i % capacity);
+				writer.write(ids[index] + "," + times[index] + "," + values[index] + "," + latencies[index]/1000);
+				writer.newLine();
+			}
+		}
+	}
+
+}
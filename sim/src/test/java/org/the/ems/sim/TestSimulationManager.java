@@ -0,0 +1,103 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.the.ems.core.data.DoubleValue;
+import org.the.ems.core.data.Value;
+import org.the.ems.core.data.ValueListener;
+
+public class TestSimulationManager {
+
+	private final BlockingQueue<Value> values = new LinkedBlockingQueue<Value>();
+
+	// Values generated by the default constant signal of 0 are ignored
+	private final ValueListener listener = value -> {
+		if (value.doubleValue() != 0) {
+			values.add(value);
+		}
+	};
+
+	private SimulationManager manager;
+
+	@Before
+	public void setup() {
+		manager = new SimulationManager();
+		manager.activate(null);
+	}
+
+	@After
+	public void teardown() {
+		manager.deactivate(null);
+	}
+
+	@Test
+	public void testListener() throws Exception {
+		manager.registerValueListener("room_a", listener);
+		
+		// Values of a channel are delivered in the order they were set
+		for (int i = 1; i <= 100; i++) {
+			manager.setLatestValue("room_a", new DoubleValue(i));
+		}
+		for (int i = 1; i <= 100; i++) {
+			assertEquals(i, values.poll(1, TimeUnit.SECONDS).doubleValue(), 0);
+		}
+		assertEquals(100, manager.getLatestValue("room_a").doubleValue(), 0);
+	}
+
+	@Test
+	public void testPattern() throws Exception {
+		manager.registerValueListener("room_*", listener);
+		
+		// Channels created after the registration are attached as well
+		manager.setLatestValue("room_b", new DoubleValue(1));
+		manager.setLatestValue("hall_a", new DoubleValue(2));
+		assertEquals(1, values.poll(1, TimeUnit.SECONDS).doubleValue(), 0);
+		
+		manager.deregisterValueListener("room_*", listener);
+		manager.setLatestValue("room_b", new DoubleValue(3));
+		assertNull(values.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testWrite() throws Exception {
+		manager.registerValueListener("room_a", listener);
+		
+		long time = System.currentTimeMillis();
+		manager.write("room_a", new DoubleValue(1, time));
+		manager.write("room_a", new DoubleValue(2, time + 100));
+		
+		// Future values are applied once they are due
+		assertEquals(1, values.poll(1, TimeUnit.SECONDS).doubleValue(), 0);
+		Value value = values.poll(1, TimeUnit.SECONDS);
+		assertEquals(2, value.doubleValue(), 0);
+		assertEquals(time + 100, value.getTime());
+	}
+
+}
@@ -0,0 +1,73 @@
+/* 
+ * Copyright 2016-21 ISC Konstanz
+ * 
+ * This file is part of TH-E-EMS.
+ * For more information visit https://github.com/isc-konstanz/TH-E-EMS
+ * 
+ * TH-E-EMS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TH-E-EMS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TH-E-EMS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.the.ems.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+import org.the.ems.core.data.DoubleValue;
+
+public class TestWriteRecorder {
+
+	@Test
+	public void testLatency() {
+		WriteRecorder recorder = new WriteRecorder(10);
+		assertEquals(0, recorder.getLatencyMean(), 0);
+		
+		recorder.record("room_a", new DoubleValue(1, 1000), 1000000);
+		recorder.record("room_a", new DoubleValue(2, 2000), 3000000);
+		assertEquals(2, recorder.getCount());
+		assertEquals(0, recorder.getOverwrittenCount());
+		assertEquals(2, recorder.getLatencyMean(), 1e-9);
+		assertEquals(3, recorder.getLatencyMax(), 1e-9);
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		WriteRecorder recorder = new WriteRecorder(3);
+		for (int i = 0; i < 5; i++) {
+			recorder.record("room_" + i, new DoubleValue(i, i*1000), i*1000);
+		}
+		assertEquals(5, recorder.getCount());
+		assertEquals(2, recorder.getOverwrittenCount());
+		
+		// Only the latest values are exported in the order they were recorded, the overwritten ones are missing
+		File file = Files.createTempFile("writes", ".csv").toFile();
+		try {
+			recorder.export(file);
+			
+			List<String> lines = Files.readAllLines(file.toPath());
+			assertEquals(4, lines.size());
+			assertEquals("id,time,value,latency", lines.get(0));
+			assertEquals("room_2,2000,2.0,2", lines.get(1));
+			assertEquals("room_3,3000,3.0,3", lines.get(2));
+			assertEquals("room_4,4000,4.0,4", lines.get(3));
+			
+		} finally {
+			file.delete();
+		}
+	}
+
+}